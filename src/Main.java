@@ -2,8 +2,11 @@ import manager.Managers;
 import manager.TaskManager;
 import model.*;
 
+import java.io.Closeable;
+import java.io.IOException;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         TaskManager manager = Managers.getDefault();
 
         int task1Id = manager.addTask(new Task("Переезд", "Организовать переезд", Status.NEW));
@@ -23,5 +26,9 @@ public class Main {
         for (Task t : manager.getHistory()) {
             System.out.println(t);
         }
+
+        if (manager instanceof Closeable closeable) {
+            closeable.close();
+        }
     }
 }
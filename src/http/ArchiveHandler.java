@@ -0,0 +1,79 @@
+package http;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import manager.TaskManager;
+import model.Task;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /archive и /archive?id= — архивные задачи; POST /archive?before= — перенести в архив
+ * завершённые до этого момента (без before — все DONE); POST /archive/restore?id= — вернуть из архива.
+ */
+public class ArchiveHandler extends BaseHttpHandler {
+
+    public ArchiveHandler(TaskManager manager, Gson gson) {
+        super(manager, gson);
+    }
+
+    ArchiveHandler(TaskManager manager, Gson gson, JsonCache jsonCache) {
+        super(manager, gson, jsonCache);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            if ("GET".equals(method) && "/archive".equals(path)) {
+                if (params.containsKey("id")) {
+                    Task task = manager.getArchived(Integer.parseInt(params.get("id")));
+                    if (task == null) {
+                        sendNotFound(exchange);
+                    } else {
+                        sendTask(exchange, task, 200);
+                    }
+                } else {
+                    sendJson(exchange, manager.getArchived(), 200);
+                }
+            } else if ("POST".equals(method) && "/archive".equals(path)) {
+                LocalDateTime before = params.containsKey("before") ? LocalDateTime.parse(params.get("before")) : null;
+                int archived = manager.archiveDone(before);
+                awaitCommit();
+                sendText(exchange, "{\"archived\":" + archived + "}", 200);
+            } else if ("POST".equals(method) && "/archive/restore".equals(path)) {
+                if (!params.containsKey("id")) {
+                    sendBadRequest(exchange, "id required");
+                    return;
+                }
+                List<Task> restored;
+                try {
+                    restored = manager.restoreArchived(Integer.parseInt(params.get("id")));
+                } catch (IllegalStateException e) {
+                    sendHasOverlaps(exchange);
+                    return;
+                }
+                if (restored.isEmpty()) {
+                    sendNotFound(exchange);
+                    return;
+                }
+                awaitCommit();
+                sendJson(exchange, restored, 200);
+            } else {
+                sendNotFound(exchange);
+            }
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            sendBadRequest(exchange, "Invalid query parameters");
+        } catch (Exception e) {
+            System.out.println("Ошибка в ArchiveHandler: " + e.getMessage());
+            sendServerError(exchange);
+        }
+    }
+}
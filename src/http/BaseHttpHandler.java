@@ -1,31 +1,227 @@
 package http;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import manager.TaskFilter;
 import manager.TaskManager;
+import manager.TaskSort;
+import model.Status;
+import model.Task;
+import model.TaskType;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 public abstract class BaseHttpHandler implements HttpHandler {
 
+    private static final String CONTENT_TYPE = "application/json;charset=utf-8";
+    private static final int STREAM_BUFFER = 8192;
+
     protected final TaskManager manager;
     protected final Gson gson;
+    private final JsonCache jsonCache;
 
     protected BaseHttpHandler(TaskManager manager, Gson gson) {
+        this(manager, gson, new JsonCache(JsonCache.DEFAULT_CAPACITY));
+    }
+
+    /**
+     * jsonCache — кеш JSON задач, общий для обработчиков одного сервера.
+     */
+    BaseHttpHandler(TaskManager manager, Gson gson, JsonCache jsonCache) {
         this.manager = manager;
         this.gson = gson;
+        this.jsonCache = jsonCache;
     }
 
     protected void sendText(HttpExchange h, String text, int code) throws IOException {
-        byte[] resp = text.getBytes(StandardCharsets.UTF_8);
-        h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        sendBytes(h, text.getBytes(StandardCharsets.UTF_8), code);
+    }
+
+    protected void sendBytes(HttpExchange h, byte[] resp, int code) throws IOException {
+        h.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
         h.sendResponseHeaders(code, resp.length);
         h.getResponseBody().write(resp);
         h.close();
     }
 
+    protected void sendTask(HttpExchange h, Task task, int code) throws IOException {
+        sendBytes(h, encode(task), code);
+    }
+
+    /**
+     * Массив пишется потоком (chunked) из закодированных задач через буфер постоянного размера:
+     * весь ответ в памяти не собирается. Список — это только ссылки на замороженные задачи,
+     * поэтому блокировка менеджера на время записи в сеть не нужна. Первая задача кодируется
+     * до отправки заголовков, так что ошибка кодирования ещё может стать ответом 500.
+     */
+    protected void sendTasks(HttpExchange h, List<? extends Task> tasks) throws IOException {
+        byte[] first = tasks.isEmpty() ? null : encode(tasks.get(0));
+        h.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+        h.sendResponseHeaders(200, 0);
+        try (OutputStream out = new BufferedOutputStream(h.getResponseBody(), STREAM_BUFFER)) {
+            out.write('[');
+            if (first != null) out.write(first);
+            for (int i = 1; i < tasks.size(); i++) {
+                out.write(',');
+                out.write(encode(tasks.get(i)));
+            }
+            out.write(']');
+        } catch (IOException | RuntimeException e) {
+            abortStream(h, e);
+            return;
+        }
+        h.close();
+    }
+
+    /**
+     * Список задач типа type. Без параметров — весь список, как раньше. С параметрами — страница
+     * {@link TaskManager#getPage}: фильтры status, epic (id эпика), from и to (начало в [from, to)),
+     * limit, sort (id, startTime, status; по умолчанию id), cursor из заголовка X-Next-Cursor
+     * предыдущей страницы и fields — через запятую поля, которые оставить в ответе (неизвестные
+     * пропускаются).
+     */
+    protected void sendList(HttpExchange h, TaskType type, Supplier<List<? extends Task>> all) throws IOException {
+        Map<String, String> params = parseQuery(h.getRequestURI().getRawQuery());
+        if (params.isEmpty()) {
+            sendTasks(h, all.get());
+            return;
+        }
+        TaskFilter filter;
+        TaskSort sort;
+        int limit;
+        long afterKey = Long.MIN_VALUE;
+        int afterId = Integer.MIN_VALUE;
+        try {
+            filter = new TaskFilter(type,
+                    params.containsKey("status") ? Status.valueOf(params.get("status")) : null,
+                    params.containsKey("epic") ? Integer.valueOf(params.get("epic")) : null,
+                    params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null,
+                    params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null);
+            sort = parseSort(params.getOrDefault("sort", "id"));
+            limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : Integer.MAX_VALUE;
+            String cursor = params.get("cursor");
+            if (cursor != null) {
+                PageCursor after = PageCursor.decode(cursor);
+                afterKey = after.key();
+                afterId = after.id();
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendBadRequest(h, "Invalid query parameters");
+            return;
+        }
+        if (limit <= 0) {
+            sendBadRequest(h, "Invalid query parameters");
+            return;
+        }
+
+        List<Task> page = manager.getPage(filter, sort, afterKey, afterId, limit);
+        if (!page.isEmpty() && page.size() == limit) {
+            Task last = page.get(page.size() - 1);
+            h.getResponseHeaders().add("X-Next-Cursor", PageCursor.after(sort.key(last), last).encode());
+        }
+        String fields = params.get("fields");
+        if (fields == null) {
+            sendTasks(h, page);
+            return;
+        }
+        List<String> names = List.of(fields.split(","));
+        List<JsonObject> projected = new ArrayList<>(page.size());
+        for (Task task : page) {
+            JsonObject full = gson.toJsonTree(task).getAsJsonObject();
+            JsonObject part = new JsonObject();
+            for (String name : names) {
+                if (full.has(name)) part.add(name, full.get(name));
+            }
+            projected.add(part);
+        }
+        sendJson(h, projected, 200);
+    }
+
+    private static TaskSort parseSort(String sort) {
+        switch (sort) {
+            case "id":
+                return TaskSort.ID;
+            case "startTime":
+                return TaskSort.START_TIME;
+            case "status":
+                return TaskSort.STATUS;
+            default:
+                throw new IllegalArgumentException("Неизвестная сортировка: " + sort);
+        }
+    }
+
+    /**
+     * Пишет value потоком через JsonWriter, не собирая строку целиком.
+     */
+    protected void sendJson(HttpExchange h, Object value, int code) throws IOException {
+        h.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+        h.sendResponseHeaders(code, 0);
+        try (JsonWriter writer = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(h.getResponseBody(), StandardCharsets.UTF_8), STREAM_BUFFER))) {
+            gson.toJson(value, value.getClass(), writer);
+        } catch (IOException | RuntimeException e) {
+            abortStream(h, e);
+            return;
+        }
+        h.close();
+    }
+
+    /**
+     * Заголовки уже отправлены, и ошибку посреди потока нельзя превратить в ответ 500: ответ
+     * обрывается с незакрытым JSON, а ошибка пишется в лог, но не пробрасывается обработчику.
+     */
+    private static void abortStream(HttpExchange h, Exception e) {
+        System.out.println("Ответ прерван на середине: " + e.getMessage());
+        h.close();
+    }
+
+    /**
+     * JSON задачи в UTF-8; для замороженной задачи берётся из {@link JsonCache}.
+     */
+    protected byte[] encode(Task task) {
+        return jsonCache.encode(task, t -> gson.toJson(t).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ждёт, пока изменение, сделанное этим потоком, будет записано хранилищем, — отвечать клиенту раньше нельзя.
+     */
+    protected void awaitCommit() {
+        manager.lastCommit().join();
+    }
+
+    protected Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isBlank()) return params;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    protected void sendBadRequest(HttpExchange h, String message) throws IOException {
+        sendText(h, "{\"error\":\"" + message + "\"}", 400);
+    }
+
     protected void sendNotFound(HttpExchange h) throws IOException {
         sendText(h, "{\"error\":\"Not Found\"}", 404);
     }
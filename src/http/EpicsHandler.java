@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.TaskManager;
 import model.Epic;
+import model.TaskType;
 
 
 import java.io.IOException;
@@ -15,6 +16,10 @@ public class EpicsHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    EpicsHandler(TaskManager manager, Gson gson, JsonCache jsonCache) {
+        super(manager, gson, jsonCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
@@ -27,9 +32,9 @@ public class EpicsHandler extends BaseHttpHandler {
                         int id = Integer.parseInt(query.substring(3));
                         Epic e = manager.getEpic(id);
                         if (e == null) sendNotFound(exchange);
-                        else sendText(exchange, gson.toJson(e), 200);
+                        else sendTask(exchange, e, 200);
                     } else {
-                        sendText(exchange, gson.toJson(manager.getEpics()), 200);
+                        sendList(exchange, TaskType.EPIC, manager::getEpics);
                     }
                     break;
                 }
@@ -43,7 +48,8 @@ public class EpicsHandler extends BaseHttpHandler {
                     Epic epic = gson.fromJson(body, Epic.class);
                     if (epic.getId() == 0) {
                         int id = manager.addEpic(epic);
-                        sendText(exchange, gson.toJson(manager.getEpic(id)), 201);
+                        awaitCommit();
+                        sendTask(exchange, manager.getEpic(id), 201);
                     } else {
                         sendText(exchange, "{\"error\":\"Epic update not supported\"}", 400);
                     }
@@ -54,6 +60,7 @@ public class EpicsHandler extends BaseHttpHandler {
                     if (query != null && query.startsWith("id=")) {
                         int id = Integer.parseInt(query.substring(3));
                         manager.deleteEpic(id);
+                        awaitCommit();
                         sendText(exchange, "", 200);
                     } else {
                         sendText(exchange, "{\"error\":\"id required\"}", 400);
@@ -12,11 +12,15 @@ public class HistoryHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    HistoryHandler(TaskManager manager, Gson gson, JsonCache jsonCache) {
+        super(manager, gson, jsonCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
             if ("GET".equals(exchange.getRequestMethod())) {
-                sendText(exchange, gson.toJson(manager.getHistory()), 200);
+                sendTasks(exchange, manager.getHistory());
             } else {
                 sendNotFound(exchange);
             }
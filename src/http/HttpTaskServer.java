@@ -1,35 +1,119 @@
 package http;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.reflect.TypeToken;
 import com.sun.net.httpserver.HttpServer;
+import manager.ConcurrentTaskManager;
 import manager.Managers;
 import manager.TaskManager;
+import model.Epic;
+import model.Task;
+import util.IntHashSet;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
 
+    public static final String EXECUTOR = "kanban.http.executor";
+    public static final String THREADS = "kanban.http.threads";
+    public static final String BACKLOG = "kanban.http.backlog";
+
+    /**
+     * Где выполняются обработчики запросов. DISPATCHER — в единственном потоке HttpServer,
+     * как раньше: медленное сохранение задерживает всех клиентов. Остальные режимы используют
+     * пул потоков: FIXED — фиксированный, WORK_STEALING — ForkJoinPool, VIRTUAL — виртуальный
+     * поток на запрос (JDK 21+).
+     */
+    public enum ExecutorMode {
+        DISPATCHER, FIXED, WORK_STEALING, VIRTUAL
+    }
+
     private static final int PORT = 8080;
     private final HttpServer server;
     private final TaskManager manager;
+    private final ExecutorService executor;
     private static Gson gson = new Gson();
 
     public HttpTaskServer(TaskManager manager) throws IOException {
+        this(manager, ExecutorMode.DISPATCHER, 0, 0);
+    }
+
+    /**
+     * threads — размер пула для FIXED и WORK_STEALING, 0 — по числу процессоров; backlog — очередь
+     * ещё не принятых соединений, 0 — по умолчанию системы. В режимах с пулом менеджер
+     * оборачивается в {@link ConcurrentTaskManager}, если он ещё не потокобезопасный.
+     */
+    public HttpTaskServer(TaskManager manager, ExecutorMode mode, int threads, int backlog) throws IOException {
+        if (mode != ExecutorMode.DISPATCHER && !(manager instanceof ConcurrentTaskManager)) {
+            manager = Managers.getConcurrent(manager);
+        }
         this.manager = manager;
         Gson gson = getGson();
+        JsonCache jsonCache = new JsonCache(JsonCache.DEFAULT_CAPACITY);
+
+        this.executor = createExecutor(mode, threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        server = HttpServer.create(new InetSocketAddress(PORT), backlog);
+        server.setExecutor(executor);
+        server.createContext("/tasks", new TasksHandler(manager, gson, jsonCache));
+        server.createContext("/subtasks", new SubtasksHandler(manager, gson, jsonCache));
+        server.createContext("/epics", new EpicsHandler(manager, gson, jsonCache));
 
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
-        server.createContext("/tasks", new TasksHandler(manager, gson));
-        server.createContext("/subtasks", new SubtasksHandler(manager, gson));
-        server.createContext("/epics", new EpicsHandler(manager, gson));
+        server.createContext("/history", new HistoryHandler(manager, gson, jsonCache));
+        server.createContext("/prioritized", new PrioritizedHandler(manager, gson, jsonCache));
+        server.createContext("/archive", new ArchiveHandler(manager, gson, jsonCache));
+        server.createContext("/stats", new StatsHandler(manager, gson));
+        server.createContext("/search", new SearchHandler(manager, gson));
+    }
 
-        server.createContext("/history", new HistoryHandler(manager, gson));
-        server.createContext("/prioritized", new PrioritizedHandler(manager, gson));
+    /**
+     * Сервер с настройками {@code kanban.http.executor} (dispatcher, fixed, work_stealing, virtual;
+     * по умолчанию fixed), {@code kanban.http.threads} и {@code kanban.http.backlog}.
+     */
+    public static HttpTaskServer fromConfig(TaskManager manager, Properties config) throws IOException {
+        ExecutorMode mode = ExecutorMode.valueOf(config.getProperty(EXECUTOR, "fixed").toUpperCase(Locale.ROOT));
+        return new HttpTaskServer(manager, mode,
+                Integer.parseInt(config.getProperty(THREADS, "0")),
+                Integer.parseInt(config.getProperty(BACKLOG, "0")));
+    }
+
+    private static ExecutorService createExecutor(ExecutorMode mode, int threads) {
+        switch (mode) {
+            case DISPATCHER:
+                return null;
+            case FIXED:
+                return Executors.newFixedThreadPool(threads);
+            case WORK_STEALING:
+                return Executors.newWorkStealingPool(threads);
+            case VIRTUAL:
+                try {
+                    // метод появился в JDK 21, а проект собирается под 17
+                    return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch (NoSuchMethodException e) {
+                    throw new IllegalStateException("Виртуальные потоки доступны с JDK 21, текущая версия: "
+                            + Runtime.version().feature());
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Не удалось создать пул виртуальных потоков", e);
+                }
+            default:
+                throw new IllegalArgumentException("Неизвестный режим: " + mode);
+        }
+    }
+
+    public TaskManager getManager() {
+        return manager;
     }
 
     public void start() {
@@ -37,8 +121,21 @@ public class HttpTaskServer {
         System.out.println("HTTP-сервер запущен на порту " + PORT);
     }
 
+    /**
+     * Останавливает сервер и закрывает менеджер, чтобы его хранилище дописало очередь на диск.
+     */
     public void stop() {
         server.stop(0);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (manager instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                System.out.println("Ошибка при закрытии хранилища: " + e.getMessage());
+            }
+        }
     }
 
     public static Gson getGson() {
@@ -70,11 +167,100 @@ public class HttpTaskServer {
             }
         });
 
+        builder.registerTypeAdapter(LocalDate.class, new JsonSerializer<LocalDate>() {
+            @Override
+            public JsonElement serialize(LocalDate date, Type type, JsonSerializationContext context) {
+                return new JsonPrimitive(date.format(DateTimeFormatter.ISO_LOCAL_DATE));
+            }
+        });
+        builder.registerTypeAdapter(LocalDate.class, new JsonDeserializer<LocalDate>() {
+            @Override
+            public LocalDate deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
+                return LocalDate.parse(json.getAsString(), DateTimeFormatter.ISO_LOCAL_DATE);
+            }
+        });
+
+        builder.registerTypeAdapter(IntHashSet.class, new TypeAdapter<IntHashSet>() {
+            @Override
+            public void write(JsonWriter out, IntHashSet ids) throws IOException {
+                out.beginArray();
+                for (int id : ids.toSortedArray()) {
+                    out.value(id);
+                }
+                out.endArray();
+            }
+
+            @Override
+            public IntHashSet read(JsonReader in) throws IOException {
+                IntHashSet ids = new IntHashSet();
+                in.beginArray();
+                while (in.hasNext()) {
+                    ids.add(in.nextInt());
+                }
+                in.endArray();
+                return ids;
+            }
+        }.nullSafe());
+
+        // Время задачи хранится в минутах и в поля не попадает, ленивое описание тоже не лежит в поле:
+        // в JSON они пишутся и читаются как прежние duration, startTime, endTime и description.
+        builder.registerTypeAdapterFactory(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                if (!Task.class.isAssignableFrom(type.getRawType())) return null;
+                TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+                TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+                TypeAdapter<Duration> durations = gson.getAdapter(Duration.class);
+                TypeAdapter<LocalDateTime> times = gson.getAdapter(LocalDateTime.class);
+                return new TypeAdapter<T>() {
+                    @Override
+                    public void write(JsonWriter out, T value) throws IOException {
+                        if (value == null) {
+                            out.nullValue();
+                            return;
+                        }
+                        Task task = (Task) value;
+                        JsonObject json = delegate.toJsonTree(value).getAsJsonObject();
+                        if (task.hasLazyDescription()) {
+                            json.addProperty("description", task.getDescription());
+                        }
+                        if (task.getDuration() != null) {
+                            json.add("duration", durations.toJsonTree(task.getDuration()));
+                        }
+                        if (task.hasStartTime()) {
+                            json.add("startTime", times.toJsonTree(task.getStartTime()));
+                        }
+                        if (task instanceof Epic && task.getEndTime() != null) {
+                            json.add("endTime", times.toJsonTree(task.getEndTime()));
+                        }
+                        elements.write(out, json);
+                    }
+
+                    @Override
+                    public T read(JsonReader in) throws IOException {
+                        JsonElement json = elements.read(in);
+                        if (json == null || json.isJsonNull()) return null;
+                        T value = delegate.fromJsonTree(json);
+                        Task task = (Task) value;
+                        JsonObject object = json.getAsJsonObject();
+                        task.setDuration(object.has("duration") ? durations.fromJsonTree(object.get("duration")) : null);
+                        task.setStartTime(object.has("startTime") ? times.fromJsonTree(object.get("startTime")) : null);
+                        if (task instanceof Epic epic) {
+                            epic.setEndTime(object.has("endTime") ? times.fromJsonTree(object.get("endTime")) : null);
+                        }
+                        return value;
+                    }
+                };
+            }
+        });
+
         return builder.create();
     }
 
     public static void main(String[] args) throws IOException {
-        HttpTaskServer taskServer = new HttpTaskServer(Managers.getDefault());
+        HttpTaskServer taskServer = fromConfig(Managers.getDefault(), System.getProperties());
+        // по Ctrl+C или SIGTERM хранилище дописывает очередь на диск
+        Runtime.getRuntime().addShutdownHook(new Thread(taskServer::stop, "http-server-stop"));
         taskServer.start();
     }
 }
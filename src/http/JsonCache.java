@@ -0,0 +1,53 @@
+package http;
+
+import model.Task;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Общий для обработчиков кеш JSON задач: id → замороженная задача и её JSON. Запись годится, пока
+ * менеджер отдаёт под этим id тот же объект: изменение заменяет задачу новым объектом, и старая
+ * запись перестаёт совпадать. Размер ограничен, вытесняется давно не читанная запись.
+ */
+final class JsonCache {
+
+    static final int DEFAULT_CAPACITY = 10_000;
+
+    private record Entry(Task task, byte[] json) {
+    }
+
+    private final Map<Integer, Entry> entries;
+
+    JsonCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * JSON задачи из кеша или от encoder; изменяемая задача не кешируется.
+     */
+    byte[] encode(Task task, Function<Task, byte[]> encoder) {
+        if (!task.isFrozen()) return encoder.apply(task);
+        synchronized (entries) {
+            Entry entry = entries.get(task.getId());
+            if (entry != null && entry.task() == task) return entry.json();
+        }
+        byte[] json = encoder.apply(task);
+        synchronized (entries) {
+            entries.put(task.getId(), new Entry(task, json));
+        }
+        return json;
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package http;
+
+import model.Task;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Курсор постраничной выдачи: ключ сортировки и id последней задачи страницы. Клиент получает его
+ * в заголовке X-Next-Cursor и возвращает параметром cursor как есть; внутри — base64url двух чисел.
+ */
+record PageCursor(long key, int id) {
+
+    private static final int BYTES = Long.BYTES + Integer.BYTES;
+
+    static PageCursor after(long key, Task last) {
+        return new PageCursor(key, last.getId());
+    }
+
+    String encode() {
+        ByteBuffer bytes = ByteBuffer.allocate(BYTES).putLong(key).putInt(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.array());
+    }
+
+    /**
+     * @throws IllegalArgumentException если строка не была выдана {@link #encode()}
+     */
+    static PageCursor decode(String cursor) {
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Неверный курсор: " + cursor);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new PageCursor(buffer.getLong(), buffer.getInt());
+    }
+}
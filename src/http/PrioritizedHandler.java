@@ -3,8 +3,14 @@ package http;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.TaskManager;
+import model.EpochMinutes;
+import model.Task;
 
 import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler {
 
@@ -12,14 +18,46 @@ public class PrioritizedHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    PrioritizedHandler(TaskManager manager, Gson gson, JsonCache jsonCache) {
+        super(manager, gson, jsonCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
-            if ("GET".equals(exchange.getRequestMethod())) {
-                sendText(exchange, gson.toJson(manager.getPrioritizedTasks()), 200);
-            } else {
+            if (!"GET".equals(exchange.getRequestMethod())) {
                 sendNotFound(exchange);
+                return;
+            }
+
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (params.isEmpty()) {
+                sendTasks(exchange, manager.getPrioritizedTasks());
+                return;
+            }
+
+            LocalDateTime from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null;
+            LocalDateTime to = params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null;
+            int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : Integer.MAX_VALUE;
+
+            List<Task> page;
+            String cursor = params.get("cursor");
+            if (cursor != null) {
+                PageCursor after = PageCursor.decode(cursor);
+                page = manager.getPrioritizedTasksAfter(EpochMinutes.toDateTime(after.key()), after.id(), to, limit);
+            } else {
+                page = manager.getPrioritizedTasks(from, to, limit);
+            }
+
+            if (!page.isEmpty() && page.size() == limit) {
+                Task last = page.get(page.size() - 1);
+                exchange.getResponseHeaders().add("X-Next-Cursor",
+                        PageCursor.after(last.getStartMinute(), last).encode());
             }
+            sendTasks(exchange, page);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            // DateTimeException — и неразобранная дата, и ключ подделанного курсора вне диапазона дат
+            sendBadRequest(exchange, "Invalid query parameters");
         } catch (Exception e) {
             System.out.println("Ошибка в PrioritizedHandler: " + e.getMessage());
             sendServerError(exchange);
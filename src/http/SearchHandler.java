@@ -0,0 +1,43 @@
+package http;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import manager.TaskManager;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * GET /search?q=&limit= — id, тип, название и отрывок найденных задач; limit по умолчанию {@value #DEFAULT_LIMIT}.
+ */
+public class SearchHandler extends BaseHttpHandler {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    public SearchHandler(TaskManager manager, Gson gson) {
+        super(manager, gson);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendNotFound(exchange);
+                return;
+            }
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            String query = params.get("q");
+            if (query == null || query.isBlank()) {
+                sendBadRequest(exchange, "q required");
+                return;
+            }
+            int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_LIMIT;
+            sendJson(exchange, manager.search(query, limit), 200);
+        } catch (IllegalArgumentException e) {
+            sendBadRequest(exchange, "Invalid query parameters");
+        } catch (Exception e) {
+            System.out.println("Ошибка в SearchHandler: " + e.getMessage());
+            sendServerError(exchange);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package http;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import manager.TaskManager;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * GET /stats — сводка по доске; GET /stats/days?from=&to= — запланированные минуты по дням в [from, to).
+ */
+public class StatsHandler extends BaseHttpHandler {
+
+    public StatsHandler(TaskManager manager, Gson gson) {
+        super(manager, gson);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendNotFound(exchange);
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if ("/stats".equals(path)) {
+                sendJson(exchange, manager.getStats(), 200);
+            } else if ("/stats/days".equals(path)) {
+                Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+                if (!params.containsKey("from") || !params.containsKey("to")) {
+                    sendBadRequest(exchange, "from and to required");
+                    return;
+                }
+                LocalDate from = LocalDate.parse(params.get("from"));
+                LocalDate to = LocalDate.parse(params.get("to"));
+                sendJson(exchange, manager.getScheduledMinutesByDay(from, to), 200);
+            } else {
+                sendNotFound(exchange);
+            }
+        } catch (DateTimeParseException e) {
+            sendBadRequest(exchange, "Invalid query parameters");
+        } catch (Exception e) {
+            System.out.println("Ошибка в StatsHandler: " + e.getMessage());
+            sendServerError(exchange);
+        }
+    }
+}
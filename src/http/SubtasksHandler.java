@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.TaskManager;
 import model.Subtask;
+import model.TaskType;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -14,6 +15,10 @@ public class SubtasksHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    SubtasksHandler(TaskManager manager, Gson gson, JsonCache jsonCache) {
+        super(manager, gson, jsonCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
@@ -26,9 +31,9 @@ public class SubtasksHandler extends BaseHttpHandler {
                         int id = Integer.parseInt(query.substring(3));
                         Subtask st = manager.getSubtask(id);
                         if (st == null) sendNotFound(exchange);
-                        else sendText(exchange, gson.toJson(st), 200);
+                        else sendTask(exchange, st, 200);
                     } else {
-                        sendText(exchange, gson.toJson(manager.getSubtasks()), 200);
+                        sendList(exchange, TaskType.SUBTASK, manager::getSubtasks);
                     }
                     break;
                 }
@@ -41,11 +46,13 @@ public class SubtasksHandler extends BaseHttpHandler {
                     Subtask subtask = gson.fromJson(body, Subtask.class);
                     if (subtask.getId() == 0) {
                         int id = manager.addSubtask(subtask);
-                        sendText(exchange, gson.toJson(manager.getSubtask(id)), 201);
+                        awaitCommit();
+                        sendTask(exchange, manager.getSubtask(id), 201);
                     } else {
                         if (manager.getSubtask(subtask.getId()) != null) {
                             manager.updateSubtask(subtask);
-                            sendText(exchange, gson.toJson(manager.getSubtask(subtask.getId())), 200);
+                            awaitCommit();
+                            sendTask(exchange, manager.getSubtask(subtask.getId()), 200);
                         } else {
                             sendText(exchange, "{\"error\":\"Subtask not found\"}", 404);
                         }
@@ -56,6 +63,7 @@ public class SubtasksHandler extends BaseHttpHandler {
                     if (query != null && query.startsWith("id=")) {
                         int id = Integer.parseInt(query.substring(3));
                         manager.deleteSubtask(id);
+                        awaitCommit();
                         sendText(exchange, "", 200);
                     } else {
                         sendText(exchange, "{\"error\":\"id required\"}", 400);
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import manager.TaskManager;
 import model.Task;
+import model.TaskType;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -14,6 +15,10 @@ public class TasksHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    TasksHandler(TaskManager manager, Gson gson, JsonCache jsonCache) {
+        super(manager, gson, jsonCache);
+    }
+
     @Override
     public void handle(HttpExchange exchange) throws IOException {
         try {
@@ -28,10 +33,10 @@ public class TasksHandler extends BaseHttpHandler {
                         if (t == null) {
                             sendNotFound(exchange);
                         } else {
-                            sendText(exchange, gson.toJson(t), 200);
+                            sendTask(exchange, t, 200);
                         }
                     } else {
-                        sendText(exchange, gson.toJson(manager.getTasks()), 200);
+                        sendList(exchange, TaskType.TASK, manager::getTasks);
                     }
                     break;
                 }
@@ -46,11 +51,13 @@ public class TasksHandler extends BaseHttpHandler {
 
                     if (task.getId() == 0) {
                         int id = manager.addTask(task);  // тут может прилететь IllegalStateException
-                        sendText(exchange, gson.toJson(manager.getTask(id)), 201);
+                        awaitCommit();
+                        sendTask(exchange, manager.getTask(id), 201);
                     } else {
                         if (manager.getTask(task.getId()) != null) {
                             manager.updateTask(task);  // и тут тоже
-                            sendText(exchange, gson.toJson(manager.getTask(task.getId())), 200);
+                            awaitCommit();
+                            sendTask(exchange, manager.getTask(task.getId()), 200);
                         } else {
                             sendText(exchange, "{\"error\":\"Task not found\"}", 404);
                         }
@@ -61,6 +68,7 @@ public class TasksHandler extends BaseHttpHandler {
                     if (query != null && query.startsWith("id=")) {
                         int id = Integer.parseInt(query.substring(3));
                         manager.deleteTask(id);
+                        awaitCommit();
                         sendText(exchange, "", 200);
                     } else {
                         sendText(exchange, "{\"error\":\"id required\"}", 400);
@@ -70,8 +78,10 @@ public class TasksHandler extends BaseHttpHandler {
                 default:
                     sendNotFound(exchange);
             }
-        } catch (IllegalStateException | IllegalArgumentException e) {
+        } catch (IllegalStateException e) {
             sendText(exchange, "{\"error\":\"Task time overlaps with another task\"}", 406);
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, "{\"error\":\"Invalid task\"}", 400);
         } catch (Exception e) {
             System.out.println("Ошибка в TasksHandler: " + e.getMessage());
             sendServerError(exchange);
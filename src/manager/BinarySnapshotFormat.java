@@ -0,0 +1,197 @@
+package manager;
+
+import model.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Двоичный формат снимка: магическое число, затем записи подряд до конца файла.
+ * Запись: тип и статус (по байту), флаги, id (varint), имя и описание (длина + 1 varint, затем UTF-8;
+ * 0 — null), длительность в минутах и начало в минутах от эпохи (zigzag varint, если выставлен флаг),
+ * у подзадачи — id эпика. Время хранится с точностью до минуты; время эпика не пишется,
+ * оно пересчитывается из подзадач при загрузке.
+ */
+final class BinarySnapshotFormat {
+
+    static final byte[] MAGIC = {'J', 'K', 'B', '1'};
+
+    private static final int HAS_DURATION = 1;
+    private static final int HAS_START = 2;
+    private static final int LAZY_MIN_BYTES = 32;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private BinarySnapshotFormat() {
+    }
+
+    static boolean hasMagic(ByteBuffer head) {
+        if (head.remaining() < MAGIC.length) return false;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (head.get(head.position() + i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    static byte[] encode(Iterable<? extends Task> tasks, Iterable<? extends Task> epics,
+                         Iterable<? extends Task> subtasks) {
+        Output out = new Output();
+        out.bytes(MAGIC, MAGIC.length);
+        tasks.forEach(out::task);
+        epics.forEach(out::task);
+        subtasks.forEach(out::task);
+        return out.toByteArray();
+    }
+
+    static void decode(ByteBuffer in, Consumer<Task> sink) {
+        decode(in, null, sink);
+    }
+
+    /**
+     * Если lazy задан, описания длиннее {@link #LAZY_MIN_BYTES} не декодируются: задача получает
+     * ссылку на их байты в буфере, и in должен оставаться доступным, пока задачи живы.
+     */
+    static void decode(ByteBuffer in, MappedDescriptions lazy, Consumer<Task> sink) {
+        if (!hasMagic(in)) {
+            throw new IllegalArgumentException("Файл не является двоичным снимком");
+        }
+        in.position(in.position() + MAGIC.length);
+        byte[] scratch = new byte[256];
+        while (in.hasRemaining()) {
+            TaskType type = TYPES[in.get()];
+            Status status = STATUSES[in.get()];
+            int flags = in.get();
+            int id = (int) readVarLong(in);
+
+            int nameLength = (int) readVarLong(in) - 1;
+            scratch = ensureCapacity(scratch, nameLength);
+            String name = readString(in, nameLength, scratch);
+            int descriptionLength = (int) readVarLong(in) - 1;
+            String description = null;
+            long descriptionRef = -1;
+            if (lazy != null && descriptionLength > LAZY_MIN_BYTES) {
+                descriptionRef = lazy.issue(id, in.position(), descriptionLength);
+                in.position(in.position() + descriptionLength);
+            } else {
+                scratch = ensureCapacity(scratch, descriptionLength);
+                description = readString(in, descriptionLength, scratch);
+            }
+
+            long durationMinutes = (flags & HAS_DURATION) != 0 ? readZigZag(in) : Task.NO_TIME;
+            long startMinute = (flags & HAS_START) != 0 ? readZigZag(in) : Task.NO_TIME;
+
+            Task task = switch (type) {
+                case TASK -> new Task(name, description, status);
+                case EPIC -> new Epic(name, description, status);
+                case SUBTASK -> new Subtask(name, description, status, (int) readVarLong(in));
+            };
+            task.setId(id);
+            if (descriptionRef >= 0) {
+                task.setLazyDescription(lazy, descriptionRef);
+            }
+            if (type != TaskType.EPIC) {
+                task.setDurationMinutes(durationMinutes);
+                task.setStartMinute(startMinute);
+            }
+            sink.accept(task);
+        }
+    }
+
+    private static byte[] ensureCapacity(byte[] scratch, int length) {
+        return length > scratch.length ? new byte[Math.max(length, scratch.length * 2)] : scratch;
+    }
+
+    private static String readString(ByteBuffer in, int length, byte[] scratch) {
+        if (length < 0) return null;
+        in.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long readZigZag(ByteBuffer in) {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static final class Output {
+        private byte[] buf = new byte[1 << 16];
+        private int size;
+
+        void task(Task task) {
+            boolean timed = task.getType() != TaskType.EPIC;
+            long durationMinutes = timed ? task.getDurationMinutes() : Task.NO_TIME;
+            long startMinute = timed ? task.getStartMinute() : Task.NO_TIME;
+            int flags = (durationMinutes != Task.NO_TIME ? HAS_DURATION : 0)
+                    | (startMinute != Task.NO_TIME ? HAS_START : 0);
+
+            ensure(3);
+            buf[size++] = (byte) task.getType().ordinal();
+            buf[size++] = (byte) task.getStatus().ordinal();
+            buf[size++] = (byte) flags;
+            varLong(Integer.toUnsignedLong(task.getId()));
+            string(task.getName());
+            string(task.getDescription());
+            if (durationMinutes != Task.NO_TIME) {
+                zigZag(durationMinutes);
+            }
+            if (startMinute != Task.NO_TIME) {
+                zigZag(startMinute);
+            }
+            if (task.getType() == TaskType.SUBTASK) {
+                varLong(Integer.toUnsignedLong(((Subtask) task).getEpicId()));
+            }
+        }
+
+        private void string(String value) {
+            if (value == null) {
+                varLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            varLong(utf8.length + 1L);
+            bytes(utf8, utf8.length);
+        }
+
+        private void zigZag(long value) {
+            varLong((value << 1) ^ (value >> 63));
+        }
+
+        private void varLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[size++] = (byte) value;
+        }
+
+        void bytes(byte[] bytes, int length) {
+            ensure(length);
+            System.arraycopy(bytes, 0, buf, size, length);
+            size += length;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, size);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package manager;
+
+import model.Status;
+import model.Task;
+import model.TaskType;
+import util.IntObjectHashMap;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Счётчики для {@link BoardStats}, которые обновляются при каждом изменении: число задач и сумма
+ * длительностей по типу и статусу, запланированные минуты по дням. Вклад каждой задачи запоминается,
+ * чтобы при замене или удалении вычесть именно его. Минуты по дням считают задачи и подзадачи
+ * (эпик — лишь сумма подзадач); задача через полночь делится между днями.
+ */
+final class BoardCounters implements TaskMirror {
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private record Entry(TaskType type, Status status, long start, long duration) {
+    }
+
+    private record DayLoad(long day, long minutes) {
+    }
+
+    // самый загруженный день — последний; при равенстве — более ранний
+    private static final Comparator<DayLoad> BY_LOAD = Comparator.comparingLong(DayLoad::minutes)
+            .thenComparing(Comparator.comparingLong(DayLoad::day).reversed());
+
+    private final IntObjectHashMap<Entry> entries = new IntObjectHashMap<>();
+    private final int[][] counts = new int[TYPES.length][STATUSES.length];
+    private final long[][] minutes = new long[TYPES.length][STATUSES.length];
+    private final TreeMap<Long, Long> minutesByDay = new TreeMap<>();
+    private final TreeSet<DayLoad> loads = new TreeSet<>(BY_LOAD);
+
+    @Override
+    public void put(Task task) {
+        remove(task.getId());
+        Entry entry = new Entry(task.getType(), task.getStatus(), task.getStartMinute(), task.getDurationMinutes());
+        entries.put(task.getId(), entry);
+        add(entry, 1);
+    }
+
+    @Override
+    public void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry != null) {
+            add(entry, -1);
+        }
+    }
+
+    @Override
+    public void removeType(TaskType type) {
+        for (int id : entries.keys()) {
+            if (entries.get(id).type() == type) remove(id);
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        for (int t = 0; t < TYPES.length; t++) {
+            Arrays.fill(counts[t], 0);
+            Arrays.fill(minutes[t], 0);
+        }
+        minutesByDay.clear();
+        loads.clear();
+    }
+
+    /**
+     * Прежних вкладов нет, поэтому их не ищем, а {@link #loads} заполняется один раз в конце:
+     * при поштучном put каждая задача переставляла бы в нём свой день.
+     */
+    @Override
+    public void rebuild(Iterable<? extends Task> tasks, Iterable<? extends Task> epics,
+                        Iterable<? extends Task> subtasks) {
+        clear();
+        for (Iterable<? extends Task> table : List.of(tasks, epics, subtasks)) {
+            for (Task task : table) {
+                Entry entry = new Entry(task.getType(), task.getStatus(), task.getStartMinute(),
+                        task.getDurationMinutes());
+                entries.put(task.getId(), entry);
+                if (count(entry, 1)) {
+                    spread(entry.start(), entry.start() + entry.duration(),
+                            (day, dayMinutes) -> minutesByDay.merge(day, dayMinutes, Long::sum));
+                }
+            }
+        }
+        minutesByDay.values().removeIf(total -> total == 0);
+        minutesByDay.forEach((day, total) -> loads.add(new DayLoad(day, total)));
+    }
+
+    BoardStats snapshot() {
+        Map<TaskType, Map<Status, Integer>> countsView = new EnumMap<>(TaskType.class);
+        Map<TaskType, Map<Status, Long>> minutesView = new EnumMap<>(TaskType.class);
+        for (TaskType type : TYPES) {
+            Map<Status, Integer> typeCounts = new EnumMap<>(Status.class);
+            Map<Status, Long> typeMinutes = new EnumMap<>(Status.class);
+            for (Status status : STATUSES) {
+                typeCounts.put(status, counts[type.ordinal()][status.ordinal()]);
+                typeMinutes.put(status, minutes[type.ordinal()][status.ordinal()]);
+            }
+            countsView.put(type, typeCounts);
+            minutesView.put(type, typeMinutes);
+        }
+        DayLoad busiest = loads.isEmpty() ? null : loads.last();
+        return new BoardStats(countsView, minutesView,
+                busiest != null ? LocalDate.ofEpochDay(busiest.day()) : null,
+                busiest != null ? busiest.minutes() : 0);
+    }
+
+    /**
+     * Запланированные минуты по дням в [from, to); дни без задач пропускаются.
+     */
+    SortedMap<LocalDate, Long> minutesByDay(LocalDate from, LocalDate to) {
+        SortedMap<LocalDate, Long> result = new TreeMap<>();
+        if (!from.isBefore(to)) return Collections.unmodifiableSortedMap(result);
+        minutesByDay.subMap(from.toEpochDay(), to.toEpochDay())
+                .forEach((day, total) -> result.put(LocalDate.ofEpochDay(day), total));
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    private void add(Entry entry, int sign) {
+        if (count(entry, sign)) {
+            spread(entry.start(), entry.start() + entry.duration(),
+                    (day, dayMinutes) -> adjustDay(day, sign * dayMinutes));
+        }
+    }
+
+    /**
+     * Учитывает задачу в счётчиках по типу и статусу; true, если её минуты надо разнести по дням.
+     */
+    private boolean count(Entry entry, int sign) {
+        counts[entry.type().ordinal()][entry.status().ordinal()] += sign;
+        if (entry.duration() == Task.NO_TIME) return false;
+        minutes[entry.type().ordinal()][entry.status().ordinal()] += sign * entry.duration();
+        return entry.type() != TaskType.EPIC && entry.start() != Task.NO_TIME;
+    }
+
+    private interface DayMinutes {
+        void add(long day, long minutes);
+    }
+
+    private static void spread(long from, long to, DayMinutes action) {
+        for (long day = Math.floorDiv(from, MINUTES_PER_DAY); from < to; day++) {
+            long dayEnd = (day + 1) * MINUTES_PER_DAY;
+            action.add(day, Math.min(to, dayEnd) - from);
+            from = dayEnd;
+        }
+    }
+
+    private void adjustDay(long day, long delta) {
+        Long previous = minutesByDay.get(day);
+        long total = (previous != null ? previous : 0) + delta;
+        if (previous != null) {
+            loads.remove(new DayLoad(day, previous));
+        }
+        if (total == 0) {
+            minutesByDay.remove(day);
+        } else {
+            minutesByDay.put(day, total);
+            loads.add(new DayLoad(day, total));
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package manager;
+
+import model.Status;
+import model.TaskType;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Сводка по доске: число задач и сумма длительностей в минутах по типу и статусу, самый загруженный
+ * день по запланированным минутам задач и подзадач (null, если запланированных нет).
+ */
+public record BoardStats(Map<TaskType, Map<Status, Integer>> counts,
+                         Map<TaskType, Map<Status, Long>> minutes,
+                         LocalDate busiestDay,
+                         long busiestDayMinutes) {
+}
@@ -0,0 +1,29 @@
+package manager;
+
+import model.Task;
+import model.TaskType;
+
+/**
+ * Изменение, которое менеджер передаёт хранилищу: запись задачи целиком (UPSERT),
+ * удаление по id (DELETE) или удаление всех задач одного типа (CLEAR).
+ */
+public record Change(Kind kind, TaskType type, int id, Task task) {
+
+    public enum Kind {
+        UPSERT,
+        DELETE,
+        CLEAR
+    }
+
+    public static Change upsert(Task task) {
+        return new Change(Kind.UPSERT, task.getType(), task.getId(), task);
+    }
+
+    public static Change delete(TaskType type, int id) {
+        return new Change(Kind.DELETE, type, id, null);
+    }
+
+    public static Change clear(TaskType type) {
+        return new Change(Kind.CLEAR, type, 0, null);
+    }
+}
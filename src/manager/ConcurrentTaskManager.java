@@ -0,0 +1,262 @@
+package manager;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасная обёртка над любым TaskManager.
+ * Чтения выполняются параллельно под read-lock, изменения — эксклюзивно под write-lock.
+ */
+public class ConcurrentTaskManager implements TaskManager, Closeable {
+
+    private final TaskManager delegate;
+    private final Lock readLock;
+    private final Lock writeLock;
+
+    public ConcurrentTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+        ReadWriteLock lock = new ReentrantReadWriteLock();
+        this.readLock = lock.readLock();
+        this.writeLock = lock.writeLock();
+    }
+
+    private <R> R read(Supplier<R> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private <R> R write(Supplier<R> action) {
+        writeLock.lock();
+        try {
+            return action.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void write(Runnable action) {
+        writeLock.lock();
+        try {
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int addTask(Task task) {
+        return write(() -> delegate.addTask(task));
+    }
+
+    @Override
+    public int addEpic(Epic epic) {
+        return write(() -> delegate.addEpic(epic));
+    }
+
+    @Override
+    public int addSubtask(Subtask subtask) {
+        return write(() -> delegate.addSubtask(subtask));
+    }
+
+    @Override
+    public Task getTask(int id) {
+        return read(() -> delegate.getTask(id));
+    }
+
+    @Override
+    public Epic getEpic(int id) {
+        return read(() -> delegate.getEpic(id));
+    }
+
+    @Override
+    public Subtask getSubtask(int id) {
+        return read(() -> delegate.getSubtask(id));
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return read(delegate::getTasks);
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return read(delegate::getEpics);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return read(delegate::getSubtasks);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return read(() -> delegate.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> delegate.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        write(() -> delegate.deleteTask(id));
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        write(() -> delegate.deleteEpic(id));
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        write(() -> delegate.deleteSubtask(id));
+    }
+
+    @Override
+    public void clearAllTasks() {
+        write(delegate::clearAllTasks);
+    }
+
+    @Override
+    public void clearAllEpics() {
+        write(delegate::clearAllEpics);
+    }
+
+    @Override
+    public void clearAllSubtasks() {
+        write(delegate::clearAllSubtasks);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(delegate::getHistory);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(delegate::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> delegate.getPrioritizedTasks(from, to, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(LocalDateTime cursorStart, int cursorId,
+                                               LocalDateTime to, int limit) {
+        return read(() -> delegate.getPrioritizedTasksAfter(cursorStart, cursorId, to, limit));
+    }
+
+    @Override
+    public List<Task> getOverlappingTasks(LocalDateTime from, LocalDateTime to) {
+        return read(() -> delegate.getOverlappingTasks(from, to));
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(LocalDateTime after, Duration duration) {
+        return read(() -> delegate.findFreeSlot(after, duration));
+    }
+
+    @Override
+    public Map<Status, Long> getPlannedMinutesByStatus() {
+        return read(delegate::getPlannedMinutesByStatus);
+    }
+
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        return read(() -> delegate.getTasksStartingBetween(from, to));
+    }
+
+    @Override
+    public List<Task> getPage(TaskFilter filter, TaskSort sort, long afterKey, int afterId, int limit) {
+        return read(() -> delegate.getPage(filter, sort, afterKey, afterId, limit));
+    }
+
+    @Override
+    public List<SearchHit> search(String query, int limit) {
+        return read(() -> delegate.search(query, limit));
+    }
+
+    @Override
+    public BoardStats getStats() {
+        return read(delegate::getStats);
+    }
+
+    @Override
+    public SortedMap<LocalDate, Long> getScheduledMinutesByDay(LocalDate from, LocalDate to) {
+        return read(() -> delegate.getScheduledMinutesByDay(from, to));
+    }
+
+    @Override
+    public int archiveDone(LocalDateTime before) {
+        return write(() -> delegate.archiveDone(before));
+    }
+
+    @Override
+    public List<Task> getArchived() {
+        return read(delegate::getArchived);
+    }
+
+    @Override
+    public Task getArchived(int id) {
+        return read(() -> delegate.getArchived(id));
+    }
+
+    @Override
+    public List<Task> restoreArchived(int id) {
+        return write(() -> delegate.restoreArchived(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> lastCommit() {
+        // без блокировки: future привязан к вызывающему потоку
+        return delegate.lastCommit();
+    }
+
+    /**
+     * Закрывает обёрнутый менеджер, если он держит хранилище; дожидается текущих изменений.
+     */
+    @Override
+    public void close() throws IOException {
+        writeLock.lock();
+        try {
+            if (delegate instanceof Closeable closeable) {
+                closeable.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package manager;
+
+import java.time.Duration;
+
+/**
+ * Когда изменение считается записанным: после fsync каждой пачки (SYNC),
+ * после общего fsync раз в groupInterval (GROUP) или сразу после передачи в ОС (NONE).
+ */
+public record DurabilityPolicy(Mode mode, Duration groupInterval) {
+
+    public enum Mode {
+        SYNC,
+        GROUP,
+        NONE
+    }
+
+    public static final DurabilityPolicy SYNC = new DurabilityPolicy(Mode.SYNC, null);
+    public static final DurabilityPolicy NONE = new DurabilityPolicy(Mode.NONE, null);
+
+    public DurabilityPolicy {
+        if (mode == Mode.GROUP && (groupInterval == null || groupInterval.isNegative() || groupInterval.isZero())) {
+            throw new IllegalArgumentException("Для группового fsync нужен положительный интервал");
+        }
+    }
+
+    public static DurabilityPolicy group(Duration interval) {
+        return new DurabilityPolicy(Mode.GROUP, interval);
+    }
+}
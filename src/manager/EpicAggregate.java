@@ -0,0 +1,88 @@
+package manager;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import util.IntObjectHashMap;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+/**
+ * Накопленные показатели эпика: счётчики статусов, упорядоченные начала/окончания
+ * подзадач и суммарная длительность. Любое изменение подзадачи стоит O(log n).
+ */
+class EpicAggregate {
+
+    private record Contribution(Status status, long start, long end, long minutes) {
+    }
+
+    private final IntObjectHashMap<Contribution> contributions = new IntObjectHashMap<>();
+    private final int[] statusCounts = new int[Status.values().length];
+    private final TreeMap<Long, Integer> starts = new TreeMap<>();
+    private final TreeMap<Long, Integer> ends = new TreeMap<>();
+    private long totalMinutes;
+
+    void put(Subtask subtask) {
+        remove(subtask.getId());
+
+        long duration = subtask.getDurationMinutes();
+        Contribution contribution = new Contribution(
+                subtask.getStatus(),
+                subtask.getStartMinute(),
+                subtask.getEndMinute(),
+                duration != Task.NO_TIME ? duration : 0
+        );
+        contributions.put(subtask.getId(), contribution);
+
+        statusCounts[contribution.status().ordinal()]++;
+        increment(starts, contribution.start());
+        increment(ends, contribution.end());
+        totalMinutes += contribution.minutes();
+    }
+
+    void remove(int subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) return;
+
+        statusCounts[contribution.status().ordinal()]--;
+        decrement(starts, contribution.start());
+        decrement(ends, contribution.end());
+        totalMinutes -= contribution.minutes();
+    }
+
+    void clear() {
+        contributions.clear();
+        Arrays.fill(statusCounts, 0);
+        starts.clear();
+        ends.clear();
+        totalMinutes = 0;
+    }
+
+    void applyTo(Epic epic) {
+        epic.setStatus(status());
+        epic.setStartMinute(starts.isEmpty() ? Task.NO_TIME : starts.firstKey());
+        epic.setEndMinute(ends.isEmpty() ? Task.NO_TIME : ends.lastKey());
+        epic.setDurationMinutes(totalMinutes);
+    }
+
+    private Status status() {
+        int size = contributions.size();
+        if (size == 0 || statusCounts[Status.NEW.ordinal()] == size) return Status.NEW;
+        if (statusCounts[Status.DONE.ordinal()] == size) return Status.DONE;
+        return Status.IN_PROGRESS;
+    }
+
+    private static void increment(TreeMap<Long, Integer> counts, long key) {
+        if (key != Task.NO_TIME) {
+            counts.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private static void decrement(TreeMap<Long, Integer> counts, long key) {
+        if (key != Task.NO_TIME) {
+            counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        }
+    }
+}
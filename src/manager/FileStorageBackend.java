@@ -0,0 +1,516 @@
+package manager;
+
+import model.*;
+import util.CsvReader;
+import util.CsvWriter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище в файле: снимок (CSV или двоичный) плюс, в режиме LOG, журнал изменений рядом с ним.
+ * В режиме SNAPSHOT каждое изменение переписывает снимок целиком, в режиме LOG дописывает
+ * одну запись в журнал, который периодически сворачивается в снимок на фоновом потоке.
+ */
+public class FileStorageBackend implements StorageBackend {
+
+    private static final String HEADER = "id,type,name,status,description,duration,startTime,endTime,epic";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String COMPACTING_SUFFIX = ".log.compacting";
+    private static final String UPSERT = "U";
+    private static final String DELETE = "D";
+    private static final String CLEAR = "C";
+    private static final long PARALLEL_LOAD_THRESHOLD = 8L << 20;
+    private static final int LOAD_CHUNK_BYTES = 1 << 20;
+    // параллельная загрузка читает файл в один массив
+    private static final long MAX_ARRAY_BYTES = Integer.MAX_VALUE - 8;
+    private static final int DESCRIPTION_CACHE_SIZE = 1024;
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private final Path file;
+    private final Path logFile;
+    private final Path compactingFile;
+    private final FileBackedTaskManager.PersistenceMode mode;
+    private final SnapshotPolicy snapshotPolicy;
+    private final DurabilityPolicy durability;
+    private final FileBackedTaskManager.SnapshotFormat format;
+    private final FileBackedTaskManager.DescriptionLoading descriptionLoading;
+    private PersistencePipeline pipeline;
+    private ExecutorService compactor;
+    private ScheduledExecutorService snapshotTimer;
+    private CompletableFuture<Void> compaction;
+    private boolean leftoverLog;
+    // ленивые описания загруженных задач и ключ файла, который они сейчас отображают
+    private final Object remapLock = new Object();
+    private volatile MappedDescriptions lazyDescriptions;
+    private Object mappedFileKey;
+
+    public FileStorageBackend(Path file, FileBackedTaskManager.PersistenceMode mode, SnapshotPolicy snapshotPolicy,
+                              DurabilityPolicy durability, FileBackedTaskManager.SnapshotFormat format) {
+        this(file, mode, snapshotPolicy, durability, format, FileBackedTaskManager.DescriptionLoading.EAGER);
+    }
+
+    /**
+     * При LAZY описания из двоичного снимка не читаются при загрузке, а берутся из отображения файла
+     * по запросу; CSV-снимок всегда читается целиком.
+     */
+    public FileStorageBackend(Path file, FileBackedTaskManager.PersistenceMode mode, SnapshotPolicy snapshotPolicy,
+                              DurabilityPolicy durability, FileBackedTaskManager.SnapshotFormat format,
+                              FileBackedTaskManager.DescriptionLoading descriptionLoading) {
+        this.file = file;
+        this.logFile = siblingOf(file, LOG_SUFFIX);
+        this.compactingFile = siblingOf(file, COMPACTING_SUFFIX);
+        this.mode = mode;
+        this.snapshotPolicy = snapshotPolicy;
+        this.durability = durability;
+        this.format = format;
+        this.descriptionLoading = descriptionLoading;
+    }
+
+    private static Path siblingOf(Path file, String suffix) {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    /**
+     * Формат, в котором сейчас записан снимок; для отсутствующего файла — CSV.
+     */
+    static FileBackedTaskManager.SnapshotFormat detectFormat(Path file) {
+        if (!Files.exists(file)) return FileBackedTaskManager.SnapshotFormat.CSV;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(BinarySnapshotFormat.MAGIC.length);
+            while (head.hasRemaining() && channel.read(head) > 0) {
+                // дочитываем заголовок
+            }
+            head.flip();
+            return BinarySnapshotFormat.hasMagic(head)
+                    ? FileBackedTaskManager.SnapshotFormat.BINARY
+                    : FileBackedTaskManager.SnapshotFormat.CSV;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при загрузке данных из файла", e);
+        }
+    }
+
+    private synchronized PersistencePipeline pipeline() {
+        if (pipeline == null) {
+            pipeline = new PersistencePipeline(file, logFile, compactingFile, durability, snapshotPolicy,
+                    this::triggerSnapshot);
+            if (mode == FileBackedTaskManager.PersistenceMode.LOG) {
+                startSnapshotTimer();
+            }
+        }
+        return pipeline;
+    }
+
+    private void startSnapshotTimer() {
+        if (!snapshotPolicy.isTimeTriggered()) return;
+        long period = snapshotPolicy.interval().toMillis();
+        snapshotTimer = Executors.newSingleThreadScheduledExecutor(daemon("snapshot-timer"));
+        snapshotTimer.scheduleAtFixedRate(() -> {
+            try {
+                triggerSnapshot();
+            } catch (RuntimeException e) {
+                System.out.println("Ошибка при создании снимка: " + e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private static java.util.concurrent.ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void load(Consumer<Change> sink) {
+        if (Files.exists(file) || mode == FileBackedTaskManager.PersistenceMode.SNAPSHOT) {
+            readSnapshot(sink);
+        }
+        boolean hasCompacting = Files.exists(compactingFile);
+        boolean hasLog = Files.exists(logFile);
+        if (hasCompacting) {
+            replayLog(compactingFile, sink);
+        }
+        if (hasLog) {
+            replayLog(logFile, sink);
+        }
+        leftoverLog = hasCompacting || hasLog;
+    }
+
+    /**
+     * В режиме SNAPSHOT оставшийся от режима LOG журнал сворачивается в снимок сразу после загрузки.
+     */
+    @Override
+    public void loaded(State state) {
+        if (!leftoverLog || mode != FileBackedTaskManager.PersistenceMode.SNAPSHOT) return;
+        save(state);
+        try {
+            Files.deleteIfExists(compactingFile);
+            Files.deleteIfExists(logFile);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при удалении журнала изменений", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Change change, State state) {
+        if (mode == FileBackedTaskManager.PersistenceMode.SNAPSHOT) {
+            CompletableFuture<Void> written = pipeline().writeSnapshot(render(state));
+            if (lazyDescriptions != null) {
+                written.thenRunAsync(this::remapDescriptions, compactor()).exceptionally(e -> {
+                    System.out.println("Ошибка при переносе описаний в новый снимок: " + e.getMessage());
+                    return null;
+                });
+            }
+            return written;
+        }
+        StringBuilder record = new StringBuilder(change.kind() == Change.Kind.UPSERT ? 128 : 16);
+        CsvWriter out = new CsvWriter(record);
+        switch (change.kind()) {
+            case UPSERT -> write(out.field(UPSERT), change.task());
+            case DELETE -> out.field(DELETE).field(change.type()).field(change.id());
+            case CLEAR -> out.field(CLEAR).field(change.type());
+        }
+        return pipeline().appendRecord(record.toString());
+    }
+
+    @Override
+    public CompletableFuture<Void> flush() {
+        PersistencePipeline current;
+        synchronized (this) {
+            current = pipeline;
+        }
+        return current != null ? current.flush() : CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Запечатывает текущий журнал и сворачивает его в снимок на фоновом потоке.
+     * Запечатывание выполняет поток-писатель, поэтому вызывающие потоки не блокируются.
+     */
+    synchronized Future<?> triggerSnapshot() {
+        if (compaction != null && !compaction.isDone()) return compaction;
+        compaction = pipeline().rotate().thenRunAsync(this::compact, compactor());
+        return compaction;
+    }
+
+    private synchronized ExecutorService compactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(daemon("snapshot-compactor"));
+        }
+        return compactor;
+    }
+
+    private void compact() {
+        if (!Files.exists(compactingFile)) return;
+        State state = InMemoryTaskManager.replay(new StorageBackend() {
+            @Override
+            public void load(Consumer<Change> sink) {
+                if (Files.exists(file)) {
+                    // описания сразу уходят в новый снимок, отображать старый незачем
+                    readSnapshot(sink, false);
+                }
+                replayLog(compactingFile, sink);
+            }
+
+            @Override
+            public CompletableFuture<Void> write(Change change, State state) {
+                throw new UnsupportedOperationException("Сворачиваемое состояние только читается");
+            }
+        });
+        save(state);
+        try {
+            Files.delete(compactingFile);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при удалении свёрнутого журнала", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        PersistencePipeline current;
+        synchronized (this) {
+            if (snapshotTimer != null) {
+                snapshotTimer.shutdownNow();
+            }
+            current = pipeline;
+        }
+        if (current != null) {
+            current.flush().join();
+        }
+        if (compactor != null) {
+            compactor.shutdown();
+            try {
+                compactor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private byte[] render(State state) {
+        if (format == FileBackedTaskManager.SnapshotFormat.BINARY) {
+            return BinarySnapshotFormat.encode(state.tasks(), state.epics(), state.subtasks());
+        }
+        StringBuilder content = new StringBuilder(HEADER).append('\n');
+        CsvWriter out = new CsvWriter(content);
+        for (Task task : state.tasks()) {
+            write(out, task);
+            out.endRecord();
+        }
+        for (Epic epic : state.epics()) {
+            write(out, epic);
+            out.endRecord();
+        }
+        for (Subtask subtask : state.subtasks()) {
+            write(out, subtask);
+            out.endRecord();
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void save(State state) {
+        try {
+            PersistencePipeline.writeAtomically(file, render(state), true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при сохранении данных в файл", e);
+        }
+        remapDescriptions();
+    }
+
+    /**
+     * Переводит ленивые описания на заменивший снимок файл, после чего отображение прежнего файла
+     * больше ничем не удерживается. Если снимок уже тот, что отображён, ничего не делает.
+     */
+    private void remapDescriptions() {
+        synchronized (remapLock) {
+            MappedDescriptions current = lazyDescriptions;
+            if (current == null) return;
+            try {
+                Object key = fileKey();
+                if (key != null && key.equals(mappedFileKey)) return;
+                if (detectFormat(file) == FileBackedTaskManager.SnapshotFormat.BINARY) {
+                    MappedByteBuffer buffer = mapSnapshot();
+                    MappedDescriptions next = new MappedDescriptions(buffer, 0);
+                    BinarySnapshotFormat.decode(buffer, next, task -> {
+                    });
+                    current.relocate(next);
+                } else {
+                    // в CSV отображать нечего: описания переходят в кучу, и следить больше не за чем
+                    current.relocate(null);
+                    lazyDescriptions = null;
+                }
+            } catch (IOException | RuntimeException e) {
+                throw new ManagerSaveException("Ошибка при переносе описаний в новый снимок", e);
+            }
+        }
+    }
+
+    /**
+     * Отображает снимок и запоминает ключ его файла; ключ сверяется до и после открытия, чтобы
+     * подмена файла между ними не связала ключ с чужим отображением.
+     */
+    private MappedByteBuffer mapSnapshot() throws IOException {
+        while (true) {
+            Object key = fileKey();
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (key == null || key.equals(fileKey())) {
+                mappedFileKey = key;
+                return buffer;
+            }
+        }
+    }
+
+    private Object fileKey() throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    }
+
+    private static void write(CsvWriter out, Task task) {
+        out.field(task.getId())
+                .field(task.getType())
+                .field(task.getName())
+                .field(task.getStatus())
+                .field(task.getDescription());
+        if (task.getDuration() != null) {
+            out.field(task.getDuration().toMinutes());
+        } else {
+            out.nullField();
+        }
+        out.field(task.getStartTime()).field(task.getEndTime());
+        if (task.getType() == TaskType.SUBTASK) {
+            out.field(((Subtask) task).getEpicId());
+        } else {
+            out.nullField();
+        }
+    }
+
+    private void readSnapshot(Consumer<Change> sink) {
+        readSnapshot(sink, descriptionLoading == FileBackedTaskManager.DescriptionLoading.LAZY);
+    }
+
+    /**
+     * Двоичный снимок отображается в память только ради ленивых описаний: тогда отображение держат
+     * {@link MappedDescriptions}, а при замене снимка они переводятся на новый файл ({@link #remapDescriptions}).
+     * Иначе файл читается в кучу, и после загрузки от него ничего не остаётся — публичного unmap в Java 17
+     * нет, отображение освободилось бы лишь при сборке мусора.
+     */
+    private void readSnapshot(Consumer<Change> sink, boolean lazy) {
+        if (detectFormat(file) == FileBackedTaskManager.SnapshotFormat.BINARY) {
+            try {
+                if (lazy) {
+                    synchronized (remapLock) {
+                        MappedByteBuffer buffer = mapSnapshot();
+                        MappedDescriptions descriptions = new MappedDescriptions(buffer, DESCRIPTION_CACHE_SIZE);
+                        BinarySnapshotFormat.decode(buffer, descriptions, task -> sink.accept(Change.upsert(task)));
+                        lazyDescriptions = descriptions;
+                    }
+                } else {
+                    BinarySnapshotFormat.decode(ByteBuffer.wrap(Files.readAllBytes(file)),
+                            task -> sink.accept(Change.upsert(task)));
+                }
+            } catch (IOException | RuntimeException e) {
+                throw new ManagerSaveException("Ошибка при загрузке двоичного снимка", e);
+            }
+            return;
+        }
+        try {
+            long size = Files.size(file);
+            if (size >= PARALLEL_LOAD_THRESHOLD && size <= MAX_ARRAY_BYTES) {
+                readSnapshotParallel(LOAD_CHUNK_BYTES, sink);
+                return;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при загрузке данных из файла", e);
+        }
+        try (CsvReader reader = openCsv(file)) {
+            reader.next();
+            while (reader.next()) {
+                sink.accept(Change.upsert(fromRecord(reader, 0)));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при загрузке данных из файла", e);
+        }
+    }
+
+    /**
+     * Разбирает CSV-снимок кусками по chunkBytes в общем ForkJoinPool и отдаёт сначала эпики,
+     * потом задачи и подзадачи, поэтому порядок строк в файле не важен.
+     */
+    void readSnapshotParallel(int chunkBytes, Consumer<Change> sink) {
+        ParallelCsvLoader.Result parsed;
+        try {
+            parsed = ParallelCsvLoader.load(file, chunkBytes, record -> fromRecord(record, 0));
+        } catch (IOException | RuntimeException e) {
+            throw new ManagerSaveException("Ошибка при загрузке данных из файла", e);
+        }
+        parsed.epics().forEach(epic -> sink.accept(Change.upsert(epic)));
+        parsed.tasks().forEach(task -> sink.accept(Change.upsert(task)));
+        parsed.subtasks().forEach(subtask -> sink.accept(Change.upsert(subtask)));
+    }
+
+    private static CsvReader openCsv(Path file) throws IOException {
+        return new CsvReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8));
+    }
+
+    private void replayLog(Path logFile, Consumer<Change> sink) {
+        try (CsvReader reader = openCsv(logFile)) {
+            while (reader.next()) {
+                // запись без перевода строки могла быть недописана при аварийной остановке — отбрасываем её
+                if (!reader.isTerminated()) break;
+                Change change;
+                try {
+                    change = fromLogRecord(reader);
+                } catch (RuntimeException e) {
+                    if (reader.next()) {
+                        throw new ManagerSaveException("Повреждённая запись в журнале изменений", e);
+                    }
+                    break;
+                }
+                sink.accept(change);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при чтении журнала изменений", e);
+        }
+    }
+
+    private static Change fromLogRecord(CsvReader record) {
+        String op = record.getString(0);
+        return switch (op) {
+            case UPSERT -> Change.upsert(fromRecord(record, 1));
+            case DELETE -> Change.delete(record.getEnum(1, TASK_TYPES), record.getInt(2));
+            case CLEAR -> Change.clear(record.getEnum(1, TASK_TYPES));
+            default -> throw new IllegalArgumentException("Неизвестная операция журнала: " + op);
+        };
+    }
+
+    private static Task fromRecord(CsvReader record, int offset) {
+        int id = record.getInt(offset);
+        TaskType type = record.getEnum(offset + 1, TASK_TYPES);
+        String name = record.getString(offset + 2);
+        Status status = record.getEnum(offset + 3, STATUSES);
+        String description = record.getString(offset + 4);
+
+        Duration duration = !record.isNull(offset + 5)
+                ? Duration.ofMinutes(record.getLong(offset + 5))
+                : null;
+
+        LocalDateTime startTime = !record.isNull(offset + 6)
+                ? record.getDateTime(offset + 6)
+                : null;
+
+        LocalDateTime endTime = !record.isNull(offset + 7)
+                ? record.getDateTime(offset + 7)
+                : null;
+
+        return switch (type) {
+            case TASK -> {
+                Task task = new Task(name, description, status);
+                task.setId(id);
+                task.setDuration(duration);
+                task.setStartTime(startTime);
+                yield task;
+            }
+            case EPIC -> {
+                Epic epic = new Epic(name, description, status);
+                epic.setId(id);
+                epic.setDuration(duration);
+                epic.setStartTime(startTime);
+                epic.setEndTime(endTime);
+                yield epic;
+            }
+            case SUBTASK -> {
+                int epicId = !record.isNull(offset + 8)
+                        ? record.getInt(offset + 8)
+                        : -1;
+                Subtask subtask = new Subtask(name, description, status, epicId);
+                subtask.setId(id);
+                subtask.setDuration(duration);
+                subtask.setStartTime(startTime);
+                yield subtask;
+            }
+        };
+    }
+}
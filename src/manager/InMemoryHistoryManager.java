@@ -22,7 +22,7 @@ public class InMemoryHistoryManager implements HistoryManager {
     private Node<Task> tail;
 
     @Override
-    public void add(Task task) {
+    public synchronized void add(Task task) {
         if (task == null) return;
 
         remove(task.getId());
@@ -38,7 +38,7 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     @Override
-    public void remove(int id) {
+    public synchronized void remove(int id) {
         Node<Task> node = receivedTasks.remove(id);
         if (node != null) {
             removeNode(node);
@@ -60,7 +60,7 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
         List<Task> history = new ArrayList<>();
         Node<Task> current = head;
         while (current != null) {
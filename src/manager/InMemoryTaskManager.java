@@ -1,65 +1,317 @@
 package manager;
 
 import model.*;
+import util.IntHashSet;
+import util.IntObjectHashMap;
 
+import java.io.Closeable;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
-public class InMemoryTaskManager implements TaskManager {
+public class InMemoryTaskManager implements TaskManager, Closeable {
 
-    protected final Map<Integer, Task> tasks = new HashMap<>();
-    protected final Map<Integer, Epic> epics = new HashMap<>();
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
+    protected final IntObjectHashMap<Task> tasks = new IntObjectHashMap<>();
+    protected final IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
+    protected final IntObjectHashMap<Subtask> subtasks = new IntObjectHashMap<>();
+    protected final IntObjectHashMap<EpicAggregate> epicAggregates = new IntObjectHashMap<>();
     protected final HistoryManager historyManager;
-    protected int nextId = 1;
+    protected final AtomicInteger nextId = new AtomicInteger(1);
 
-    protected final NavigableSet<Task> prioritizedTasks = new TreeSet<>(
-            Comparator
-                    .comparing(Task::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
-                    .thenComparing(Task::getId)
-    );
+    // год с запасом на високосный; длиннее задачи считаются ошибкой ввода
+    static final long MAX_DURATION_MINUTES = 366L * 24 * 60;
+    private static final Comparator<Task> PRIORITY_ORDER = (a, b) -> {
+        int byStart = Long.compare(startKey(a), startKey(b));
+        return byStart != 0 ? byStart : Integer.compare(a.getId(), b.getId());
+    };
+
+    protected final NavigableSet<Task> prioritizedTasks = new TreeSet<>(PRIORITY_ORDER);
+    protected final IntervalIndex scheduleIndex = new IntervalIndex();
+    protected final StorageBackend storage;
+    protected final TaskArchive archive;
+    private final StorageBackend.State state = new StorageBackend.State() {
+        @Override
+        public Collection<Task> tasks() {
+            return tasks.sortedValues();
+        }
+
+        @Override
+        public Collection<Epic> epics() {
+            return epics.sortedValues();
+        }
+
+        @Override
+        public Collection<Subtask> subtasks() {
+            return subtasks.sortedValues();
+        }
+    };
+    private final ThreadLocal<CompletableFuture<Void>> lastCommit =
+            ThreadLocal.withInitial(() -> CompletableFuture.completedFuture(null));
+    private boolean bulkRestoring;
+    private final BoardCounters counters = new BoardCounters();
+    private final TaskIndex index = new TaskIndex();
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final List<TaskMirror> mirrors = new ArrayList<>(List.of(counters, index, searchIndex));
+    private TaskColumns columns;
 
     public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, StorageBackend.NONE);
+    }
+
+    /**
+     * Менеджер, который передаёт каждое изменение в storage. Сохранённое состояние
+     * не читается — для этого есть {@link #loadFromStorage()}.
+     */
+    public InMemoryTaskManager(HistoryManager historyManager, StorageBackend storage) {
+        this(historyManager, storage, null);
+    }
+
+    /**
+     * archiveFile — файл архива завершённых задач; null — архив только в памяти.
+     */
+    public InMemoryTaskManager(HistoryManager historyManager, StorageBackend storage, Path archiveFile) {
         this.historyManager = historyManager;
+        this.storage = storage;
+        this.archive = new TaskArchive(archiveFile);
+        nextId.set(archive.maxId() + 1);
+    }
+
+    /**
+     * Восстанавливает состояние из хранилища. Вызывается один раз, до первого изменения.
+     */
+    public void loadFromStorage() {
+        try {
+            bulkRestore(() -> storage.load(this::apply));
+        } catch (IllegalStateException e) {
+            throw new ManagerSaveException("Сохранённое состояние содержит пересекающиеся задачи", e);
+        }
+        dropRestoredFromArchive();
+        storage.loaded(state);
+    }
+
+    /**
+     * Таблицы, восстановленные из source без зеркал (счётчиков, индексов, колоночной копии):
+     * сворачиванию журнала нужны только сами задачи.
+     */
+    static StorageBackend.State replay(StorageBackend source) {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager(), source);
+        manager.mirrors.clear();
+        manager.loadFromStorage();
+        return manager.state;
+    }
+
+    /**
+     * Future последнего изменения, сделанного текущим потоком: завершается, когда хранилище
+     * записало его.
+     */
+    @Override
+    public CompletableFuture<Void> lastCommit() {
+        return lastCommit.get();
+    }
+
+    @Override
+    public void close() {
+        storage.close();
+    }
+
+    private void persist(Change change) {
+        mirror(change);
+        lastCommit.set(storage.write(change, state));
+    }
+
+    /**
+     * Включает колоночную копию задач ({@link TaskColumns}): отчёты вроде
+     * {@link #getPlannedMinutesByStatus()} идут по массивам примитивов, а каждое изменение
+     * дополнительно обновляет её строки.
+     */
+    public void enableColumnarStore() {
+        if (columns != null) return;
+        columns = new TaskColumns(tasks.size() + epics.size() + subtasks.size());
+        mirrors.add(columns);
+        // остальные зеркала уже заполнены, пересобирать их незачем
+        columns.rebuild(tasks.values(), epics.values(), subtasks.values());
+    }
+
+    private void rebuildMirrors() {
+        for (TaskMirror mirror : mirrors) {
+            mirror.rebuild(tasks.values(), epics.values(), subtasks.values());
+        }
+    }
+
+    /**
+     * Переносит в зеркала запись или очистку; удаления приходят через {@link #unmirror(Task)},
+     * потому что к моменту записи удалённой задачи уже нет в таблицах.
+     */
+    private void mirror(Change change) {
+        switch (change.kind()) {
+            case UPSERT -> {
+                mirrors.forEach(mirror -> mirror.put(change.task()));
+                if (change.task() instanceof Subtask subtask) {
+                    mirrorEpic(subtask.getEpicId());
+                }
+            }
+            case DELETE -> {
+            }
+            case CLEAR -> {
+                for (TaskMirror mirror : mirrors) {
+                    mirror.removeType(change.type());
+                    if (change.type() == TaskType.EPIC) {
+                        mirror.removeType(TaskType.SUBTASK);
+                    } else if (change.type() == TaskType.SUBTASK) {
+                        epics.values().forEach(mirror::put);
+                    }
+                }
+            }
+        }
+    }
+
+    private void unmirror(Task removed) {
+        for (TaskMirror mirror : mirrors) {
+            mirror.remove(removed.getId());
+            if (removed instanceof Epic epic) {
+                epic.forEachSubtaskId(mirror::remove);
+            }
+        }
+        if (removed instanceof Subtask subtask) {
+            mirrorEpic(subtask.getEpicId());
+        }
+    }
+
+    private void mirrorEpic(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic != null) {
+            mirrors.forEach(mirror -> mirror.put(epic));
+        }
+    }
+
+    /**
+     * Применяет сохранённое изменение, не передавая его обратно в хранилище.
+     */
+    protected void apply(Change change) {
+        switch (change.kind()) {
+            case UPSERT -> restore(change.task());
+            case DELETE -> {
+                switch (change.type()) {
+                    case TASK -> removeTask(change.id());
+                    case EPIC -> removeEpic(change.id());
+                    case SUBTASK -> removeSubtask(change.id());
+                }
+            }
+            case CLEAR -> {
+                switch (change.type()) {
+                    case TASK -> removeAllTasks();
+                    case EPIC -> removeAllEpics();
+                    case SUBTASK -> removeAllSubtasks();
+                }
+            }
+        }
+    }
+
+    /**
+     * Сбой между записью в архив и удалением из хранилища (или наоборот при возврате) оставляет
+     * задачу в обоих местах; верной считается копия в хранилище.
+     */
+    private void dropRestoredFromArchive() {
+        if (archive.size() == 0) return;
+        IntHashSet restored = new IntHashSet();
+        IntConsumer collect = id -> {
+            if (archive.contains(id)) restored.add(id);
+        };
+        tasks.forEachKey(collect);
+        epics.forEachKey(collect);
+        archive.removeAll(restored);
     }
 
     protected int generateId() {
-        return nextId++;
+        return nextId.getAndIncrement();
+    }
+
+    /**
+     * Копия, которую хранит менеджер: вызывающий может и дальше менять свой объект, а читатели
+     * получают замороженную копию без повторного копирования.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Task> T own(T task) {
+        if (task.isFrozen()) return task;
+        T copy = (T) task.copy();
+        copy.freeze();
+        return copy;
+    }
+
+    /**
+     * Хранимый эпик заморожен, поэтому его меняют через копию, которая сразу заменяет его
+     * в таблице; после изменений копию замораживает {@link #publish(Task)}. Во время загрузки
+     * эпики ещё не заморожены и меняются на месте.
+     */
+    private Epic editableEpic(int id) {
+        Epic epic = epics.get(id);
+        if (epic == null || !epic.isFrozen()) return epic;
+        Epic copy = epic.copy();
+        epics.put(id, copy);
+        return copy;
+    }
+
+    /**
+     * Задачу old удалили или заменили на replacement: если её ленивое описание больше не нужно
+     * хранимой задаче, оно переходит в кучу старого объекта (и его копий), а источник отпускает
+     * ссылку и не переносит её в следующий снимок.
+     */
+    private static void retire(Task old, Task replacement) {
+        if (old != null && old.hasLazyDescription() && !old.sharesDescription(replacement)) {
+            old.detachDescription();
+        }
+    }
+
+    private void publish(Task task) {
+        if (!bulkRestoring) task.freeze();
     }
 
     @Override
     public int addTask(Task task) {
         ensureNoOverlap(task);
         task.setId(generateId());
-        tasks.put(task.getId(), task);
-        addToPrioritizedIfHasStart(task);
-        return task.getId();
+        Task stored = own(task);
+        tasks.put(stored.getId(), stored);
+        addToPrioritizedIfHasStart(stored);
+        persist(Change.upsert(stored));
+        return stored.getId();
     }
 
     @Override
     public int addEpic(Epic epic) {
         epic.setId(generateId());
-        epics.put(epic.getId(), epic);
-        return epic.getId();
+        Epic stored = own(epic);
+        epics.put(stored.getId(), stored);
+        epicAggregates.put(stored.getId(), new EpicAggregate());
+        persist(Change.upsert(stored));
+        return stored.getId();
     }
 
     @Override
     public int addSubtask(Subtask subtask) {
         int epicId = subtask.getEpicId();
-        Epic epic = epics.get(epicId);
-        if (epic == null) {
+        if (!epics.containsKey(epicId)) {
             throw new IllegalArgumentException("Эпик с id=" + epicId + " не найден");
         }
         ensureNoOverlap(subtask);
         subtask.setId(generateId());
-        subtasks.put(subtask.getId(), subtask);
-        epic.addSubtaskId(subtask.getId());
-        addToPrioritizedIfHasStart(subtask);
-        updateEpicStatus(epic);
-        updateEpicTime(epic);
-        return subtask.getId();
+        Subtask stored = own(subtask);
+        subtasks.put(stored.getId(), stored);
+        Epic epic = editableEpic(epicId);
+        epic.addSubtaskId(stored.getId());
+        addToPrioritizedIfHasStart(stored);
+        EpicAggregate aggregate = epicAggregates.get(epicId);
+        aggregate.put(stored);
+        aggregate.applyTo(epic);
+        publish(epic);
+        persist(Change.upsert(stored));
+        return stored.getId();
     }
 
     @Override
@@ -85,17 +337,17 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Task> getTasks() {
-        return new ArrayList<>(tasks.values());
+        return tasks.sortedValues();
     }
 
     @Override
     public List<Epic> getEpics() {
-        return new ArrayList<>(epics.values());
+        return epics.sortedValues();
     }
 
     @Override
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return subtasks.sortedValues();
     }
 
     @Override
@@ -105,22 +357,30 @@ public class InMemoryTaskManager implements TaskManager {
         Task old = tasks.get(task.getId());
         removeFromPrioritizedIfHasStart(old);
 
+        Task stored = own(task);
         try {
-            ensureNoOverlap(task);
-            tasks.put(task.getId(), task);
-            addToPrioritizedIfHasStart(task);
+            ensureNoOverlap(stored);
+            tasks.put(stored.getId(), stored);
+            addToPrioritizedIfHasStart(stored);
         } catch (RuntimeException ex) {
             addToPrioritizedIfHasStart(old);
             throw ex;
         }
+        retire(old, stored);
+        persist(Change.upsert(stored));
     }
 
     @Override
     public void updateEpic(Epic newEpic) {
-        Epic old = epics.get(newEpic.getId());
-        if (old != null) {
-            old.setName(newEpic.getName());
-            old.setDescription(newEpic.getDescription());
+        Epic epic = editableEpic(newEpic.getId());
+        if (epic != null) {
+            epic.setName(newEpic.getName());
+            if (!epic.sharesDescription(newEpic)) {
+                retire(epic, newEpic);
+                epic.setDescription(newEpic.getDescription());
+            }
+            publish(epic);
+            persist(Change.upsert(epic));
         }
     }
 
@@ -131,89 +391,142 @@ public class InMemoryTaskManager implements TaskManager {
         Subtask old = subtasks.get(subtask.getId());
         removeFromPrioritizedIfHasStart(old);
 
+        Subtask stored = own(subtask);
         try {
-            ensureNoOverlap(subtask);
-            subtasks.put(subtask.getId(), subtask);
-            addToPrioritizedIfHasStart(subtask);
+            ensureNoOverlap(stored);
+            subtasks.put(stored.getId(), stored);
+            addToPrioritizedIfHasStart(stored);
 
-            Epic epic = epics.get(subtask.getEpicId());
-            updateEpicTime(epic);
+            EpicAggregate aggregate = epicAggregates.get(stored.getEpicId());
+            aggregate.put(stored);
+            Epic epic = editableEpic(stored.getEpicId());
+            aggregate.applyTo(epic);
+            publish(epic);
         } catch (RuntimeException ex) {
             addToPrioritizedIfHasStart(old);
             throw ex;
         }
+        retire(old, stored);
+        persist(Change.upsert(stored));
     }
 
     @Override
     public void deleteTask(int id) {
-        Task removed = tasks.remove(id);
-        removeFromPrioritizedIfHasStart(removed);
-        historyManager.remove(id);
+        Task removed = removeTask(id);
+        if (removed != null) {
+            unmirror(removed);
+            persist(Change.delete(TaskType.TASK, id));
+        }
     }
 
     @Override
     public void deleteEpic(int id) {
-        Epic removedEpic = epics.remove(id);
-        if (removedEpic != null) {
-            removedEpic.getSubtaskIds().stream().forEach(subId -> {
-                Subtask s = subtasks.remove(subId);
-                removeFromPrioritizedIfHasStart(s);
-                historyManager.remove(subId);
-            });
-            historyManager.remove(id);
+        Epic removed = removeEpic(id);
+        if (removed != null) {
+            unmirror(removed);
+            persist(Change.delete(TaskType.EPIC, id));
         }
     }
 
     @Override
     public void deleteSubtask(int id) {
-        Subtask removed = subtasks.remove(id);
+        Subtask removed = removeSubtask(id);
         if (removed != null) {
-            removeFromPrioritizedIfHasStart(removed);
-            Epic epic = epics.get(removed.getEpicId());
-            if (epic != null) {
-                epic.removeSubtaskId(id);
-                updateEpicStatus(epic);
-                updateEpicTime(epic);
-            }
-            historyManager.remove(id);
+            unmirror(removed);
+            persist(Change.delete(TaskType.SUBTASK, id));
         }
     }
 
     @Override
     public void clearAllTasks() {
-        tasks.keySet().forEach(historyManager::remove);
-        prioritizedTasks.removeAll(
-                tasks.values().stream().filter(t -> t.getStartTime() != null).collect(Collectors.toSet())
-        );
-        tasks.clear();
+        removeAllTasks();
+        persist(Change.clear(TaskType.TASK));
     }
 
     @Override
     public void clearAllEpics() {
-        epics.keySet().forEach(historyManager::remove);
-        subtasks.keySet().forEach(historyManager::remove);
-
-        prioritizedTasks.removeAll(
-                subtasks.values().stream().filter(t -> t.getStartTime() != null).collect(Collectors.toSet())
-        );
-
-        epics.clear();
-        subtasks.clear();
+        removeAllEpics();
+        persist(Change.clear(TaskType.EPIC));
     }
 
     @Override
     public void clearAllSubtasks() {
-        subtasks.keySet().forEach(historyManager::remove);
+        removeAllSubtasks();
+        persist(Change.clear(TaskType.SUBTASK));
+    }
 
-        prioritizedTasks.removeAll(
-                subtasks.values().stream().filter(t -> t.getStartTime() != null).collect(Collectors.toSet())
-        );
+    private Task removeTask(int id) {
+        Task removed = tasks.remove(id);
+        removeFromPrioritizedIfHasStart(removed);
+        historyManager.remove(id);
+        retire(removed, null);
+        return removed;
+    }
 
-        epics.values().forEach(e -> {
-            e.getSubtaskIds().clear();
-            updateEpicStatus(e);
-            updateEpicTime(e);
+    private Epic removeEpic(int id) {
+        Epic removedEpic = epics.remove(id);
+        epicAggregates.remove(id);
+        if (removedEpic == null) return null;
+        removedEpic.forEachSubtaskId(subId -> {
+            Subtask s = subtasks.remove(subId);
+            removeFromPrioritizedIfHasStart(s);
+            historyManager.remove(subId);
+            retire(s, null);
         });
+        historyManager.remove(id);
+        retire(removedEpic, null);
+        return removedEpic;
+    }
+
+    private Subtask removeSubtask(int id) {
+        Subtask removed = subtasks.remove(id);
+        if (removed == null) return null;
+        removeFromPrioritizedIfHasStart(removed);
+        Epic epic = editableEpic(removed.getEpicId());
+        if (epic != null) {
+            epic.removeSubtaskId(id);
+            EpicAggregate aggregate = epicAggregates.get(epic.getId());
+            aggregate.remove(id);
+            aggregate.applyTo(epic);
+            publish(epic);
+        }
+        historyManager.remove(id);
+        retire(removed, null);
+        return removed;
+    }
+
+    private void removeAllTasks() {
+        tasks.forEachKey(historyManager::remove);
+        tasks.values().forEach(this::removeFromPrioritizedIfHasStart);
+        tasks.values().forEach(task -> retire(task, null));
+        tasks.clear();
+    }
+
+    private void removeAllEpics() {
+        epics.forEachKey(historyManager::remove);
+        subtasks.forEachKey(historyManager::remove);
+        subtasks.values().forEach(this::removeFromPrioritizedIfHasStart);
+        epics.values().forEach(epic -> retire(epic, null));
+        subtasks.values().forEach(subtask -> retire(subtask, null));
+
+        epics.clear();
+        epicAggregates.clear();
+        subtasks.clear();
+    }
+
+    private void removeAllSubtasks() {
+        subtasks.forEachKey(historyManager::remove);
+        subtasks.values().forEach(this::removeFromPrioritizedIfHasStart);
+        subtasks.values().forEach(subtask -> retire(subtask, null));
+
+        for (int id : epics.keys()) {
+            Epic epic = editableEpic(id);
+            epic.clearSubtaskIds();
+            EpicAggregate aggregate = epicAggregates.get(id);
+            aggregate.clear();
+            aggregate.applyTo(epic);
+            publish(epic);
+        }
         subtasks.clear();
     }
 
@@ -221,10 +534,14 @@ public class InMemoryTaskManager implements TaskManager {
     public List<Subtask> getEpicSubtasks(int epicId) {
         Epic epic = epics.get(epicId);
         if (epic == null) return Collections.emptyList();
-        return epic.getSubtaskIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskCount());
+        for (int subtaskId : epic.getSubtaskIds()) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -237,94 +554,498 @@ public class InMemoryTaskManager implements TaskManager {
         return new ArrayList<>(prioritizedTasks);
     }
 
-    protected void updateEpicStatus(Epic epic) {
-        List<Subtask> epicSubtasks = getEpicSubtasks(epic.getId());
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        NavigableSet<Task> view = from == null
+                ? prioritizedTasks
+                : prioritizedTasks.tailSet(probe(from, Integer.MIN_VALUE), true);
+        return page(view, to, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasksAfter(LocalDateTime cursorStart, int cursorId,
+                                               LocalDateTime to, int limit) {
+        return page(prioritizedTasks.tailSet(probe(cursorStart, cursorId), false), to, limit);
+    }
 
-        if (epicSubtasks.isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
+    private List<Task> page(NavigableSet<Task> view, LocalDateTime to, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
+        }
+        if (to != null) {
+            view = view.headSet(probe(to, Integer.MIN_VALUE), false);
         }
+        List<Task> result = new ArrayList<>(Math.min(limit, 256));
+        for (Task task : view) {
+            if (result.size() >= limit) break;
+            result.add(task);
+        }
+        return result;
+    }
 
-        boolean allNew = epicSubtasks.stream().allMatch(s -> s.getStatus() == Status.NEW);
-        boolean allDone = epicSubtasks.stream().allMatch(s -> s.getStatus() == Status.DONE);
+    private static Task probe(LocalDateTime startTime, int id) {
+        Task probe = new Task(null, null, null);
+        probe.setStartMinute(EpochMinutes.ceil(startTime));
+        probe.setId(id);
+        return probe;
+    }
 
-        if (allNew) epic.setStatus(Status.NEW);
-        else if (allDone) epic.setStatus(Status.DONE);
-        else epic.setStatus(Status.IN_PROGRESS);
+    @Override
+    public List<Task> getOverlappingTasks(LocalDateTime from, LocalDateTime to) {
+        return scheduleIndex.overlapping(from, to);
     }
 
-    protected void updateEpicTime(Epic epic) {
-        List<Subtask> epicSubtasks = getEpicSubtasks(epic.getId());
-        if (epicSubtasks.isEmpty()) {
-            epic.setStartTime(null);
-            epic.setDuration(Duration.ZERO);
-            epic.setEndTime(null);
-            return;
+    @Override
+    public LocalDateTime findFreeSlot(LocalDateTime after, Duration duration) {
+        return scheduleIndex.earliestFreeSlot(after, duration);
+    }
+
+    @Override
+    public int archiveDone(LocalDateTime before) {
+        List<Task> doneTasks = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (isArchivable(task, before)) doneTasks.add(task);
         }
+        List<Epic> doneEpics = new ArrayList<>();
+        List<Subtask> doneSubtasks = new ArrayList<>();
+        for (Epic epic : epics.values()) {
+            if (isArchivable(epic, before)) {
+                doneEpics.add(epic);
+                doneSubtasks.addAll(getEpicSubtasks(epic.getId()));
+            }
+        }
+        // сначала архив на диске, потом удаление из хранилища
+        archive.add(doneTasks, doneEpics, doneSubtasks);
+        for (Task task : doneTasks) {
+            deleteTask(task.getId());
+        }
+        for (Epic epic : doneEpics) {
+            deleteEpic(epic.getId());
+        }
+        return doneTasks.size() + doneEpics.size();
+    }
 
-        LocalDateTime start = epicSubtasks.stream()
-                .map(Task::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
+    private static boolean isArchivable(Task task, LocalDateTime before) {
+        if (task.getStatus() != Status.DONE) return false;
+        return before == null
+                || task.getEndMinute() != Task.NO_TIME && task.getEndMinute() <= EpochMinutes.of(before);
+    }
 
-        LocalDateTime end = epicSubtasks.stream()
-                .map(Task::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
+    @Override
+    public List<Task> getArchived() {
+        return archive.getAll();
+    }
 
-        long totalMinutes = epicSubtasks.stream()
-                .map(Task::getDuration)
-                .filter(Objects::nonNull)
-                .mapToLong(Duration::toMinutes)
-                .sum();
+    @Override
+    public Task getArchived(int id) {
+        return archive.get(id);
+    }
 
-        epic.setStartTime(start);
-        epic.setEndTime(end);
-        epic.setDuration(Duration.ofMinutes(totalMinutes));
+    @Override
+    public List<Task> restoreArchived(int id) {
+        List<Task> unit = archive.unit(id);
+        for (Task task : unit) {
+            ensureNoOverlap(task);
+        }
+        for (Task task : unit) {
+            restore(task);
+        }
+        // restore заменяет эпик копией при каждой подзадаче — отдаём и пишем то, что теперь хранится
+        List<Task> restored = new ArrayList<>(unit.size());
+        for (Task task : unit) {
+            Task stored = switch (task.getType()) {
+                case TASK -> tasks.get(task.getId());
+                case EPIC -> epics.get(task.getId());
+                case SUBTASK -> subtasks.get(task.getId());
+            };
+            restored.add(stored);
+            persist(Change.upsert(stored));
+        }
+        archive.remove(id);
+        return restored;
     }
 
-    private void addToPrioritizedIfHasStart(Task task) {
-        if (task != null && task.getStartTime() != null) {
-            prioritizedTasks.add(task);
+    /**
+     * Задачи-кандидаты берутся из самого узкого источника (см. {@link #forEachCandidate}), а из них
+     * в куче остаются только limit лучших после курсора: таблицы не копируются. Выборка по времени
+     * в порядке START_TIME идёт по индексу начала по возрастанию и останавливается на limit.
+     */
+    @Override
+    public List<Task> getPage(TaskFilter filter, TaskSort sort, long afterKey, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + limit);
         }
+        if (sort == TaskSort.START_TIME && filter.epicId() == null && isTimeRangeNarrowest(filter)) {
+            return pageByStart(filter, afterKey, afterId, limit);
+        }
+        Comparator<Task> order = sort.order();
+        PriorityQueue<Task> best = new PriorityQueue<>(Math.min(limit, 256) + 1, order.reversed());
+        forEachCandidate(filter, task -> {
+            if (!filter.matches(task) || !sort.isAfter(task, afterKey, afterId)) return;
+            if (best.size() < limit) {
+                best.add(task);
+            } else if (order.compare(task, best.peek()) < 0) {
+                best.poll();
+                best.add(task);
+            }
+        });
+        List<Task> page = new ArrayList<>(best);
+        page.sort(order);
+        return page;
     }
 
-    private void removeFromPrioritizedIfHasStart(Task task) {
-        if (task != null && task.getStartTime() != null) {
-            prioritizedTasks.remove(task);
+    /**
+     * Подзадачи эпика, индекс по времени начала или по статусу — что уже, — иначе таблица типа
+     * или все таблицы. Кандидаты ещё нужно проверить {@link TaskFilter#matches}.
+     */
+    private void forEachCandidate(TaskFilter filter, Consumer<Task> action) {
+        if (filter.epicId() != null) {
+            Epic epic = epics.get(filter.epicId());
+            if (epic != null) epic.forEachSubtaskId(id -> action.accept(subtasks.get(id)));
+        } else if (isTimeRangeNarrowest(filter)) {
+            for (IntHashSet ids : index.startingBetween(filter.fromMinute(), filter.toMinute()).values()) {
+                ids.forEach(id -> action.accept(find(id)));
+            }
+        } else if (filter.status() != null) {
+            index.forEachWithStatus(filter.type(), filter.status(), id -> action.accept(find(id)));
+        } else if (filter.type() != null) {
+            table(filter.type()).forEach(action);
+        } else {
+            tasks.values().forEach(action);
+            epics.values().forEach(action);
+            subtasks.values().forEach(action);
+        }
+    }
+
+    private boolean isTimeRangeNarrowest(TaskFilter filter) {
+        if (!filter.hasTimeRange()) return false;
+        if (filter.status() == null) return true;
+        int withStatus = index.countWithStatus(filter.type(), filter.status());
+        return index.countStartingBetween(filter.fromMinute(), filter.toMinute(), withStatus) < withStatus;
+    }
+
+    private List<Task> pageByStart(TaskFilter filter, long afterKey, int afterId, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(limit, 256));
+        long from = Math.max(filter.fromMinute(), afterKey);
+        for (Map.Entry<Long, IntHashSet> group : index.startingBetween(from, filter.toMinute()).entrySet()) {
+            for (int id : group.getValue().toSortedArray()) {
+                if (group.getKey() == afterKey && id <= afterId) continue;
+                Task task = find(id);
+                if (!filter.matches(task)) continue;
+                page.add(task);
+                if (page.size() == limit) return page;
+            }
+        }
+        return page;
+    }
+
+    private Collection<? extends Task> table(TaskType type) {
+        return switch (type) {
+            case TASK -> tasks.values();
+            case EPIC -> epics.values();
+            case SUBTASK -> subtasks.values();
+        };
+    }
+
+    private Task find(int id) {
+        Task task = tasks.get(id);
+        if (task != null) return task;
+        Epic epic = epics.get(id);
+        return epic != null ? epic : subtasks.get(id);
+    }
+
+    /**
+     * Отрывок берётся из описания, а у задачи без описания — из названия.
+     */
+    @Override
+    public List<SearchHit> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Число результатов должно быть положительным: " + limit);
+        }
+        List<SearchHit> hits = new ArrayList<>();
+        for (SearchIndex.Match match : searchIndex.search(query, limit)) {
+            Task task = find(match.id());
+            String description = task.getDescription();
+            String text = description == null || description.isEmpty() ? task.getName() : description;
+            hits.add(new SearchHit(task.getId(), task.getType(), task.getName(),
+                    SearchIndex.snippet(text, query), match.score()));
         }
+        return hits;
     }
 
-    private boolean isOverlapping(Task a, Task b) {
-        if (a == null || b == null) return false;
-        if (a.getStartTime() == null || a.getDuration() == null) return false;
-        if (b.getStartTime() == null || b.getDuration() == null) return false;
+    @Override
+    public BoardStats getStats() {
+        return counters.snapshot();
+    }
 
-        LocalDateTime aStart = a.getStartTime();
-        LocalDateTime aEnd = a.getEndTime();
-        LocalDateTime bStart = b.getStartTime();
-        LocalDateTime bEnd = b.getEndTime();
+    @Override
+    public SortedMap<LocalDate, Long> getScheduledMinutesByDay(LocalDate from, LocalDate to) {
+        return counters.minutesByDay(from, to);
+    }
 
-        return aStart.isBefore(bEnd) && bStart.isBefore(aEnd);
+    @Override
+    public Map<Status, Long> getPlannedMinutesByStatus() {
+        Map<Status, Long> result = new EnumMap<>(Status.class);
+        if (columns != null) {
+            long[] sums = columns.minutesByStatus();
+            for (Status status : Status.values()) {
+                result.put(status, sums[status.ordinal()]);
+            }
+            return result;
+        }
+        for (Status status : Status.values()) {
+            result.put(status, 0L);
+        }
+        for (Task task : tasks.values()) {
+            addPlannedMinutes(result, task);
+        }
+        for (Subtask subtask : subtasks.values()) {
+            addPlannedMinutes(result, subtask);
+        }
+        return result;
     }
 
-    private boolean hasOverlap(Task candidate) {
-        if (candidate.getStartTime() == null || candidate.getDuration() == null) return false;
+    private static void addPlannedMinutes(Map<Status, Long> result, Task task) {
+        if (task.getDurationMinutes() != Task.NO_TIME) {
+            result.merge(task.getStatus(), task.getDurationMinutes(), Long::sum);
+        }
+    }
 
-        Task lower = prioritizedTasks.lower(candidate);
-        Task higher = prioritizedTasks.higher(candidate);
+    @Override
+    public List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to) {
+        long fromMinute = EpochMinutes.ceil(from);
+        long toMinute = EpochMinutes.ceil(to);
+        List<Task> result = new ArrayList<>();
+        if (columns != null) {
+            for (int id : columns.startingBetween(fromMinute, toMinute)) {
+                Task task = tasks.get(id);
+                result.add(task != null ? task : subtasks.get(id));
+            }
+        } else {
+            for (Task task : tasks.values()) {
+                if (startsBetween(task, fromMinute, toMinute)) result.add(task);
+            }
+            for (Subtask subtask : subtasks.values()) {
+                if (startsBetween(subtask, fromMinute, toMinute)) result.add(subtask);
+            }
+        }
+        result.sort(PRIORITY_ORDER);
+        return result;
+    }
 
-        return (lower != null && lower.getId() != candidate.getId() && isOverlapping(lower, candidate))
-                || (higher != null && higher.getId() != candidate.getId() && isOverlapping(candidate, higher));
+    private static boolean startsBetween(Task task, long from, long to) {
+        return task.hasStartTime() && task.getStartMinute() >= from && task.getStartMinute() < to;
+    }
+
+    protected void restore(Task task) {
+        int id = task.getId();
+        if (task.getType() != TaskType.EPIC) {
+            try {
+                checkTime(task);
+            } catch (IllegalArgumentException e) {
+                throw new ManagerSaveException("Сохранённое состояние содержит задачу с недопустимым временем", e);
+            }
+        }
+        if (id >= nextId.get()) {
+            nextId.set(id + 1);
+        }
+
+        switch (task.getType()) {
+            case TASK -> {
+                Task old = tasks.put(id, task);
+                removeFromPrioritizedIfHasStart(old);
+                retire(old, task);
+                addToPrioritizedIfHasStart(task);
+                publish(task);
+            }
+            case EPIC -> {
+                Epic epic = (Epic) task;
+                if (epics.containsKey(id)) {
+                    Epic existing = editableEpic(id);
+                    existing.setName(epic.getName());
+                    retire(existing, epic);
+                    existing.setDescription(epic.getDescription());
+                    publish(existing);
+                    return;
+                }
+                epics.put(id, epic);
+                EpicAggregate aggregate = new EpicAggregate();
+                epicAggregates.put(id, aggregate);
+                aggregate.applyTo(epic);
+                publish(epic);
+            }
+            case SUBTASK -> {
+                Subtask subtask = (Subtask) task;
+                Epic epic = editableEpic(subtask.getEpicId());
+                if (epic == null) return; // эпик уже удалён — повторное применение журнала
+                Subtask old = subtasks.put(id, subtask);
+                removeFromPrioritizedIfHasStart(old);
+                retire(old, subtask);
+                addToPrioritizedIfHasStart(subtask);
+                publish(subtask);
+                epic.addSubtaskId(id);
+                EpicAggregate aggregate = epicAggregates.get(epic.getId());
+                aggregate.put(subtask);
+                aggregate.applyTo(epic);
+                publish(epic);
+            }
+        }
+    }
+
+    /**
+     * Восстанавливает состояние пачкой: loader вызывает {@link #restore} для каждой записи, а
+     * prioritizedTasks и scheduleIndex строятся один раз в конце из отсортированного массива.
+     * Заодно проверяется, что задачи не пересекаются по времени.
+     */
+    protected void bulkRestore(Runnable loader) {
+        bulkRestoring = true;
+        try {
+            loader.run();
+        } finally {
+            bulkRestoring = false;
+            tasks.values().forEach(Task::freeze);
+            epics.values().forEach(Task::freeze);
+            subtasks.values().forEach(Task::freeze);
+        }
+        rebuildSchedule();
+        rebuildMirrors();
+    }
+
+    private void rebuildSchedule() {
+        Task[] scheduled = new Task[tasks.size() + subtasks.size()];
+        int n = 0;
+        for (Task task : tasks.values()) {
+            if (task.hasStartTime()) scheduled[n++] = task;
+        }
+        for (Subtask subtask : subtasks.values()) {
+            if (subtask.hasStartTime()) scheduled[n++] = subtask;
+        }
+        Arrays.parallelSort(scheduled, 0, n, PRIORITY_ORDER);
+        List<Task> sorted = Arrays.asList(scheduled).subList(0, n);
+
+        List<Task> timed = new ArrayList<>(n);
+        Task latest = null;
+        for (Task task : sorted) {
+            if (!IntervalIndex.isIndexed(task)) continue;
+            if (latest != null && task.getStartMinute() < latest.getEndMinute()
+                    && latest.getStartMinute() < task.getEndMinute()) {
+                throw new IllegalStateException("Задачи пересекаются по времени: id=" + latest.getId()
+                        + " и id=" + task.getId());
+            }
+            if (latest == null || task.getEndMinute() > latest.getEndMinute()) {
+                latest = task;
+            }
+            timed.add(task);
+        }
+
+        prioritizedTasks.clear();
+        prioritizedTasks.addAll(new SortedRun(sorted));
+        scheduleIndex.build(timed);
+    }
+
+    /**
+     * Уже отсортированный список в обёртке SortedSet с тем же компаратором: TreeSet.addAll
+     * строит из такого набора сбалансированное дерево за O(n), без сравнений и поворотов.
+     * Остальные операции SortedSet не нужны и не поддерживаются.
+     */
+    private static class SortedRun extends AbstractSet<Task> implements SortedSet<Task> {
+        private final List<Task> sorted;
+
+        SortedRun(List<Task> sorted) {
+            this.sorted = sorted;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            return sorted.iterator();
+        }
+
+        @Override
+        public int size() {
+            return sorted.size();
+        }
+
+        @Override
+        public Comparator<? super Task> comparator() {
+            return PRIORITY_ORDER;
+        }
+
+        @Override
+        public Task first() {
+            return sorted.get(0);
+        }
+
+        @Override
+        public Task last() {
+            return sorted.get(sorted.size() - 1);
+        }
+
+        @Override
+        public SortedSet<Task> subSet(Task from, Task to) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedSet<Task> headSet(Task to) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedSet<Task> tailSet(Task from) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Задачи без начала идут в конце.
+     */
+    private static long startKey(Task task) {
+        return task.hasStartTime() ? task.getStartMinute() : Long.MAX_VALUE;
+    }
+
+    private void addToPrioritizedIfHasStart(Task task) {
+        if (bulkRestoring) return;
+        if (task != null && task.hasStartTime()) {
+            prioritizedTasks.add(task);
+            scheduleIndex.add(task);
+        }
+    }
+
+    private void removeFromPrioritizedIfHasStart(Task task) {
+        if (bulkRestoring) return;
+        if (task != null && task.hasStartTime()) {
+            prioritizedTasks.remove(task);
+            scheduleIndex.remove(task.getId());
+        }
+    }
+
+    /**
+     * Длительность не длиннее {@link #MAX_DURATION_MINUTES}, а у задачи с началом ещё и не
+     * отрицательна, и её начало и конец лежат в границах LocalDateTime: иначе счётчики
+     * раскладывали бы минуты по дням без конца, а start + duration мог бы переполниться.
+     * Отрицательная длительность без начала встречается в старых снимках и допускается.
+     */
+    private static void checkTime(Task task) {
+        long duration = task.getDurationMinutes();
+        if (duration != Task.NO_TIME && duration > MAX_DURATION_MINUTES) {
+            throw new IllegalArgumentException("Недопустимая длительность задачи id=" + task.getId()
+                    + ": " + duration + " мин");
+        }
+        long start = task.getStartMinute();
+        if (start == Task.NO_TIME) return;
+        if (duration != Task.NO_TIME && duration < 0) {
+            throw new IllegalArgumentException("Отрицательная длительность задачи id=" + task.getId());
+        }
+        if (start < EpochMinutes.MIN || start > EpochMinutes.MAX - Math.max(duration, 0)) {
+            throw new IllegalArgumentException("Недопустимое время начала задачи id=" + task.getId());
+        }
     }
 
     private void ensureNoOverlap(Task candidate) {
-        if (hasOverlap(candidate)) {
+        checkTime(candidate);
+        if (scheduleIndex.overlapsAny(candidate)) {
             throw new IllegalStateException(
                     "Задача пересекается по времени с другой задачей: id=" + candidate.getId());
         }
     }
 }
-
@@ -0,0 +1,230 @@
+package manager;
+
+import model.EpochMinutes;
+import model.Task;
+import util.IntObjectHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Интервальное дерево (AVL по началу задачи, дополненное максимумом окончаний в поддереве).
+ * Хранит только задачи с заданными startTime и duration; интервалы полуоткрытые [start, end)
+ * в минутах от эпохи. Запросы с секундами расширяются до целых минут.
+ */
+class IntervalIndex {
+
+    private static class Node {
+        final Task task;
+        final long start;
+        final long end;
+        long maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.start = task.getStartMinute();
+            this.end = task.getEndMinute();
+            this.maxEnd = end;
+        }
+    }
+
+    private final IntObjectHashMap<Node> nodesById = new IntObjectHashMap<>();
+    private Node root;
+
+    static boolean isIndexed(Task task) {
+        return task != null && task.getEndMinute() != Task.NO_TIME;
+    }
+
+    int size() {
+        return nodesById.size();
+    }
+
+    void add(Task task) {
+        if (!isIndexed(task)) return;
+        remove(task.getId());
+        Node node = new Node(task);
+        nodesById.put(task.getId(), node);
+        root = insert(root, node);
+    }
+
+    void remove(int id) {
+        Node node = nodesById.remove(id);
+        if (node != null) {
+            root = delete(root, node.start, id);
+        }
+    }
+
+    void clear() {
+        nodesById.clear();
+        root = null;
+    }
+
+    /**
+     * Строит индекс заново из задач, уже отсортированных по (startTime, id), за O(n):
+     * середина отрезка становится корнем, высоты и maxEnd считаются снизу вверх.
+     */
+    void build(List<Task> sorted) {
+        clear();
+        root = buildBalanced(sorted, 0, sorted.size() - 1);
+    }
+
+    private Node buildBalanced(List<Task> sorted, int from, int to) {
+        if (from > to) return null;
+        int mid = (from + to) >>> 1;
+        Task task = sorted.get(mid);
+        Node node = new Node(task);
+        nodesById.put(task.getId(), node);
+        node.left = buildBalanced(sorted, from, mid - 1);
+        node.right = buildBalanced(sorted, mid + 1, to);
+        update(node);
+        return node;
+    }
+
+    boolean overlapsAny(Task candidate) {
+        if (!isIndexed(candidate)) return false;
+        return firstOverlap(root, candidate.getStartMinute(), candidate.getEndMinute()) != null;
+    }
+
+    List<Task> overlapping(LocalDateTime from, LocalDateTime to) {
+        List<Task> result = new ArrayList<>();
+        collect(root, EpochMinutes.of(from), EpochMinutes.ceil(to), result);
+        return result;
+    }
+
+    /**
+     * Самое раннее начало не раньше after (с точностью до минуты), с которого duration не пересекается
+     * ни с одной задачей.
+     */
+    LocalDateTime earliestFreeSlot(LocalDateTime after, Duration duration) {
+        long minutes = duration.toMinutes();
+        if (!duration.equals(Duration.ofMinutes(minutes))) minutes++;
+        long candidate = EpochMinutes.ceil(after);
+        while (true) {
+            Node blocking = firstOverlap(root, candidate, candidate + minutes);
+            if (blocking == null) return EpochMinutes.toDateTime(candidate);
+            candidate = blocking.end;
+        }
+    }
+
+    private static boolean overlaps(Node node, long from, long to) {
+        return node.start < to && from < node.end;
+    }
+
+    private static Node firstOverlap(Node node, long from, long to) {
+        if (node == null || node.maxEnd <= from) return null;
+
+        Node found = firstOverlap(node.left, from, to);
+        if (found != null) return found;
+
+        if (node.start >= to) return null;
+        if (overlaps(node, from, to)) return node;
+
+        return firstOverlap(node.right, from, to);
+    }
+
+    private static void collect(Node node, long from, long to, List<Task> out) {
+        if (node == null || node.maxEnd <= from) return;
+
+        collect(node.left, from, to, out);
+        if (node.start >= to) return;
+        if (overlaps(node, from, to)) {
+            out.add(node.task);
+        }
+        collect(node.right, from, to, out);
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.task.getId());
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (compare(added.start, added.task.getId(), node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private static Node delete(Node node, long start, int id) {
+        if (node == null) return null;
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private static Node deleteMin(Node node) {
+        if (node.left == null) return node.right;
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) maxEnd = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd > maxEnd) maxEnd = node.right.maxEnd;
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+}
@@ -0,0 +1,264 @@
+package manager;
+
+import model.*;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище во встроенной базе через JDBC, например H2 в файловом режиме
+ * ({@code jdbc:h2:file:./resources/tasks}); драйвер нужен только в classpath во время выполнения.
+ * Каждое изменение затрагивает только свои строки: поток-писатель забирает накопившиеся изменения
+ * и применяет их пакетами подготовленных запросов в одной транзакции.
+ * <p>
+ * Поток-писатель — демон: очередь дописывается только в {@link #close()}, и вызывающий обязан его
+ * вызвать до выхода из JVM. H2 по умолчанию сам закрывает базу при выходе и мог бы сделать это раньше
+ * такого close, поэтому к адресу H2 добавляется {@code DB_CLOSE_ON_EXIT=FALSE}, если он не задан явно.
+ */
+public class JdbcStorageBackend implements StorageBackend {
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS tasks ("
+            + "id INT PRIMARY KEY, "
+            + "type VARCHAR(16) NOT NULL, "
+            + "name VARCHAR, "
+            + "status VARCHAR(16) NOT NULL, "
+            + "description VARCHAR, "
+            + "duration_minutes BIGINT, "
+            + "start_time TIMESTAMP, "
+            + "epic_id INT)";
+    private static final String SELECT_ALL = "SELECT id, type, name, status, description, duration_minutes, "
+            + "start_time, epic_id FROM tasks ORDER BY CASE WHEN type = 'EPIC' THEN 0 ELSE 1 END, id";
+    private static final String UPSERT = "MERGE INTO tasks (id, type, name, status, description, "
+            + "duration_minutes, start_time, epic_id) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE = "DELETE FROM tasks WHERE id = ? OR epic_id = ?";
+    private static final String CLEAR = "DELETE FROM tasks WHERE type = ?";
+
+    /**
+     * Строка таблицы, снятая с задачи в момент изменения: сама задача может измениться,
+     * пока запись ждёт в очереди.
+     */
+    private record Row(int id, TaskType type, String name, Status status, String description,
+                       Long durationMinutes, LocalDateTime startTime, Integer epicId) {
+
+        static Row of(Task task) {
+            return new Row(task.getId(), task.getType(), task.getName(), task.getStatus(), task.getDescription(),
+                    task.getDuration() != null ? task.getDuration().toMinutes() : null,
+                    task.getStartTime(),
+                    task.getType() == TaskType.SUBTASK ? ((Subtask) task).getEpicId() : null);
+        }
+    }
+
+    private record Entry(Change.Kind kind, TaskType type, int id, Row row, CompletableFuture<Void> done) {
+    }
+
+    private static final Entry CLOSE = new Entry(null, null, 0, null, new CompletableFuture<>());
+
+    private final Connection connection;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    public JdbcStorageBackend(String url) {
+        try {
+            connection = DriverManager.getConnection(connectionUrl(url));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+            }
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Не удалось открыть базу данных " + url, e);
+        }
+        writer = new Thread(this::run, "jdbc-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    static String connectionUrl(String url) {
+        if (!url.startsWith("jdbc:h2:") || url.toUpperCase(Locale.ROOT).contains("DB_CLOSE_ON_EXIT")) return url;
+        return url + ";DB_CLOSE_ON_EXIT=FALSE";
+    }
+
+    @Override
+    public void load(Consumer<Change> sink) {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(SELECT_ALL)) {
+            while (rows.next()) {
+                sink.accept(Change.upsert(fromRow(rows)));
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Ошибка при загрузке данных из базы", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> write(Change change, State state) {
+        Row row = change.kind() == Change.Kind.UPSERT ? Row.of(change.task()) : null;
+        return enqueue(new Entry(change.kind(), change.type(), change.id(), row, new CompletableFuture<>()));
+    }
+
+    @Override
+    public CompletableFuture<Void> flush() {
+        return enqueue(new Entry(null, null, 0, null, new CompletableFuture<>()));
+    }
+
+    /**
+     * Дописывает очередь в базу и закрывает соединение.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            queue.add(CLOSE);
+        }
+        try {
+            writer.join();
+            connection.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            throw new ManagerSaveException("Ошибка при закрытии базы данных", e);
+        }
+    }
+
+    private synchronized CompletableFuture<Void> enqueue(Entry entry) {
+        if (closed) {
+            throw new ManagerSaveException("Запись после закрытия хранилища", null);
+        }
+        queue.add(entry);
+        return entry.done();
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch);
+            stop = batch.remove(CLOSE);
+            try {
+                commit(batch);
+            } catch (RuntimeException e) {
+                // неожиданная ошибка не должна останавливать писателя: ожидающие узнают о ней из future
+                rollback();
+                ManagerSaveException failure = new ManagerSaveException("Ошибка в потоке записи", e);
+                batch.forEach(entry -> entry.done().completeExceptionally(failure));
+            }
+            batch.clear();
+        }
+        ManagerSaveException stopped = new ManagerSaveException("Поток записи остановлен", null);
+        queue.forEach(entry -> entry.done().completeExceptionally(stopped));
+    }
+
+    private void commit(List<Entry> batch) {
+        try (PreparedStatement upsert = connection.prepareStatement(UPSERT);
+             PreparedStatement delete = connection.prepareStatement(DELETE);
+             PreparedStatement clear = connection.prepareStatement(CLEAR)) {
+            boolean pendingUpserts = false;
+            boolean pendingDeletes = false;
+            for (Entry entry : batch) {
+                if (entry.kind() == null) continue;
+                switch (entry.kind()) {
+                    case UPSERT -> {
+                        if (pendingDeletes) {
+                            delete.executeBatch();
+                            pendingDeletes = false;
+                        }
+                        bind(upsert, entry.row());
+                        upsert.addBatch();
+                        pendingUpserts = true;
+                    }
+                    case DELETE -> {
+                        if (pendingUpserts) {
+                            upsert.executeBatch();
+                            pendingUpserts = false;
+                        }
+                        delete.setInt(1, entry.id());
+                        delete.setInt(2, entry.type() == TaskType.EPIC ? entry.id() : -1);
+                        delete.addBatch();
+                        pendingDeletes = true;
+                    }
+                    case CLEAR -> {
+                        if (pendingUpserts) {
+                            upsert.executeBatch();
+                            pendingUpserts = false;
+                        }
+                        if (pendingDeletes) {
+                            delete.executeBatch();
+                            pendingDeletes = false;
+                        }
+                        clear.setString(1, entry.type().name());
+                        clear.executeUpdate();
+                        if (entry.type() == TaskType.EPIC) {
+                            clear.setString(1, TaskType.SUBTASK.name());
+                            clear.executeUpdate();
+                        }
+                    }
+                }
+            }
+            if (pendingUpserts) upsert.executeBatch();
+            if (pendingDeletes) delete.executeBatch();
+            connection.commit();
+            batch.forEach(entry -> entry.done().complete(null));
+        } catch (SQLException e) {
+            rollback();
+            ManagerSaveException failure = new ManagerSaveException("Ошибка при записи в базу данных", e);
+            batch.forEach(entry -> entry.done().completeExceptionally(failure));
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.out.println("Ошибка при откате транзакции: " + e.getMessage());
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Row row) throws SQLException {
+        statement.setInt(1, row.id());
+        statement.setString(2, row.type().name());
+        statement.setString(3, row.name());
+        statement.setString(4, row.status().name());
+        statement.setString(5, row.description());
+        statement.setObject(6, row.durationMinutes(), Types.BIGINT);
+        statement.setObject(7, row.startTime(), Types.TIMESTAMP);
+        statement.setObject(8, row.epicId(), Types.INTEGER);
+    }
+
+    private static Task fromRow(ResultSet rows) throws SQLException {
+        int id = rows.getInt(1);
+        TaskType type = TaskType.valueOf(rows.getString(2));
+        String name = rows.getString(3);
+        Status status = Status.valueOf(rows.getString(4));
+        String description = rows.getString(5);
+        long minutes = rows.getLong(6);
+        Duration duration = rows.wasNull() ? null : Duration.ofMinutes(minutes);
+        LocalDateTime startTime = rows.getObject(7, LocalDateTime.class);
+
+        Task task = switch (type) {
+            case TASK -> new Task(name, description, status);
+            case EPIC -> new Epic(name, description, status);
+            case SUBTASK -> new Subtask(name, description, status, rows.getInt(8));
+        };
+        task.setId(id);
+        if (type != TaskType.EPIC) {
+            task.setDuration(duration);
+            task.setStartTime(startTime);
+        }
+        return task;
+    }
+}
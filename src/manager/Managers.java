@@ -1,15 +1,89 @@
 package manager;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Properties;
 
 public class Managers {
+    public static final String STORAGE = "kanban.storage";
+    public static final String FILE = "kanban.file";
+    public static final String FILE_MODE = "kanban.file.mode";
+    public static final String FILE_DESCRIPTIONS = "kanban.file.descriptions";
+    public static final String JDBC_URL = "kanban.jdbc.url";
+    public static final String ARCHIVE_FILE = "kanban.archive.file";
+    public static final String ARCHIVE_AFTER = "kanban.archive.after";
+    public static final String COLUMNAR = "kanban.columnar";
+
     public static TaskManager getDefault() {
-        File file = new File("resources/tasks.csv");
-        return FileBackedTaskManager.loadFromFile(file);
+        return fromConfig(System.getProperties());
+    }
+
+    /**
+     * Менеджер с хранилищем из настроек: {@code kanban.storage=file} (по умолчанию) — файл
+     * {@code kanban.file} в режиме {@code kanban.file.mode} (snapshot или log), описания из двоичного
+     * снимка читаются сразу или по запросу по {@code kanban.file.descriptions} (eager или lazy);
+     * {@code kanban.storage=jdbc} — встроенная база по адресу {@code kanban.jdbc.url}, архив
+     * в обязательном файле {@code kanban.archive.file}. Если задан {@code kanban.archive.after} (ISO-8601,
+     * например P30D), при запуске в архив уходят задачи, завершённые раньше этого срока.
+     * {@code kanban.columnar=true} включает колоночную копию задач для отчётов.
+     */
+    public static TaskManager fromConfig(Properties config) {
+        TaskManager manager = open(config);
+        if (Boolean.parseBoolean(config.getProperty(COLUMNAR)) && manager instanceof InMemoryTaskManager inMemory) {
+            inMemory.enableColumnarStore();
+        }
+        String archiveAfter = config.getProperty(ARCHIVE_AFTER);
+        if (archiveAfter != null) {
+            manager.archiveDone(LocalDateTime.now().minus(Duration.parse(archiveAfter)));
+        }
+        return manager;
+    }
+
+    private static TaskManager open(Properties config) {
+        String storage = config.getProperty(STORAGE, "file");
+        switch (storage) {
+            case "file": {
+                File file = new File(config.getProperty(FILE, "resources/tasks.csv"));
+                FileBackedTaskManager.PersistenceMode mode = FileBackedTaskManager.PersistenceMode.valueOf(
+                        config.getProperty(FILE_MODE, "snapshot").toUpperCase(Locale.ROOT));
+                FileBackedTaskManager.DescriptionLoading descriptions =
+                        FileBackedTaskManager.DescriptionLoading.valueOf(
+                                config.getProperty(FILE_DESCRIPTIONS, "eager").toUpperCase(Locale.ROOT));
+                return FileBackedTaskManager.loadFromFile(file, mode, SnapshotPolicy.DISABLED, DurabilityPolicy.SYNC,
+                        FileStorageBackend.detectFormat(file.toPath()), descriptions);
+            }
+            case "jdbc": {
+                String url = config.getProperty(JDBC_URL);
+                if (url == null) {
+                    throw new IllegalArgumentException("Не задан адрес базы: " + JDBC_URL);
+                }
+                // без файла архив живёт только в памяти, а архивация удаляет строки из базы навсегда
+                String archive = config.getProperty(ARCHIVE_FILE);
+                if (archive == null) {
+                    throw new IllegalArgumentException("Для хранилища jdbc не задан файл архива: " + ARCHIVE_FILE);
+                }
+                InMemoryTaskManager manager = new InMemoryTaskManager(getDefaultHistory(),
+                        new JdbcStorageBackend(url), Path.of(archive));
+                manager.loadFromStorage();
+                return manager;
+            }
+            default:
+                throw new IllegalArgumentException("Неизвестное хранилище: " + storage);
+        }
+    }
+
+    public static TaskManager getConcurrent(TaskManager manager) {
+        return new ConcurrentTaskManager(manager);
+    }
+
+    public static TaskManager getDefaultConcurrent() {
+        return getConcurrent(getDefault());
     }
 
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 }
-
@@ -0,0 +1,164 @@
+package manager;
+
+import model.DescriptionSource;
+import util.IntIntHashMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Описания, оставленные в отображённом в память двоичном снимке. Ссылка — смещение UTF-8 байтов
+ * в старших 32 битах и их длина в младших; последние прочитанные строки держатся в LRU-кеше
+ * ограниченного размера.
+ * <p>
+ * Ссылки выдаются при загрузке и дальше не меняются, а снимок может быть заменён новым. Тогда
+ * {@link #relocate} переносит их в новый снимок, и старое отображение больше не нужно: описание,
+ * которое в новом снимке не совпадает со старым, копируется в кучу. Ссылки, отпущенные через
+ * {@link #release} (задачу удалили или заменили её описание), при этом просто отбрасываются.
+ */
+final class MappedDescriptions implements DescriptionSource {
+
+    /**
+     * Где сейчас лежат описания: буфер снимка, живые ссылки по возрастанию (null — все выданные,
+     * и ссылка сама есть адрес), адрес каждой из них в буфере и скопированные в кучу описания
+     * (null — копий нет).
+     */
+    private record Layout(ByteBuffer data, long[] refs, long[] location, String[] detached) {
+    }
+
+    private final Map<Long, String> cache;
+    // живые ссылки по возрастанию смещения, id их задач и отпущенные с прошлого relocate
+    private long[] refs = new long[16];
+    private int[] ids = new int[16];
+    private int count;
+    private final BitSet released = new BitSet();
+    private volatile Layout layout;
+
+    MappedDescriptions(ByteBuffer data, int cacheSize) {
+        this.layout = new Layout(data, null, null, null);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Ссылка на описание задачи id; вызывается при разборе снимка по возрастанию offset.
+     */
+    long issue(int id, int offset, int length) {
+        if (count == refs.length) {
+            refs = Arrays.copyOf(refs, count * 2);
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        long ref = ((long) offset << 32) | (length & 0xFFFFFFFFL);
+        refs[count] = ref;
+        ids[count] = id;
+        count++;
+        return ref;
+    }
+
+    /**
+     * @throws IllegalStateException если ссылку отпустили и с тех пор снимок сменился
+     */
+    @Override
+    public String description(long ref) {
+        synchronized (cache) {
+            String cached = cache.get(ref);
+            if (cached != null) return cached;
+        }
+        Layout current = layout;
+        String description;
+        if (current.refs() == null) {
+            description = read(current.data(), ref);
+        } else {
+            int index = Arrays.binarySearch(current.refs(), ref);
+            if (index < 0) {
+                throw new IllegalStateException("Описание по ссылке " + ref + " уже отпущено");
+            }
+            description = current.detached()[index] != null
+                    ? current.detached()[index]
+                    : read(current.data(), current.location()[index]);
+        }
+        synchronized (cache) {
+            cache.put(ref, description);
+        }
+        return description;
+    }
+
+    /**
+     * До следующего {@link #relocate} описание по ref ещё читается из текущего снимка.
+     */
+    @Override
+    public synchronized void release(long ref) {
+        int index = Arrays.binarySearch(refs, 0, count, ref);
+        if (index >= 0) released.set(index);
+        synchronized (cache) {
+            cache.remove(ref);
+        }
+    }
+
+    /**
+     * Число ссылок, которые переживут следующий {@link #relocate}.
+     */
+    synchronized int liveCount() {
+        return count - released.cardinality();
+    }
+
+    /**
+     * Переводит ссылки на снимок, разобранный в next; null — новый снимок не двоичный, и все описания
+     * копируются в кучу. Отпущенные ссылки отбрасываются. После вызова прежний буфер не используется.
+     */
+    synchronized void relocate(MappedDescriptions next) {
+        Layout current = layout;
+        IntIntHashMap nextIndex = new IntIntHashMap(next != null ? next.count : 0);
+        for (int i = 0; next != null && i < next.count; i++) {
+            nextIndex.put(next.ids[i], i);
+        }
+        int live = count - released.cardinality();
+        long[] liveRefs = new long[live];
+        int[] liveIds = new int[live];
+        long[] location = new long[live];
+        String[] detached = new String[live];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (released.get(i)) continue;
+            liveRefs[n] = refs[i];
+            liveIds[n] = ids[i];
+            if (current.detached() != null && current.detached()[i] != null) {
+                detached[n++] = current.detached()[i];
+                continue;
+            }
+            long at = current.location() == null ? refs[i] : current.location()[i];
+            int match = nextIndex.get(ids[i]);
+            if (match >= 0 && sameBytes(current.data(), at, next.layout.data(), next.refs[match])) {
+                location[n] = next.refs[match];
+            } else {
+                detached[n] = read(current.data(), at);
+            }
+            n++;
+        }
+        refs = liveRefs;
+        ids = liveIds;
+        count = live;
+        released.clear();
+        layout = new Layout(next != null ? next.layout.data() : null, liveRefs, location, detached);
+    }
+
+    private static String read(ByteBuffer data, long ref) {
+        byte[] bytes = new byte[(int) ref];
+        data.get((int) (ref >>> 32), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean sameBytes(ByteBuffer data, long ref, ByteBuffer other, long otherRef) {
+        int length = (int) ref;
+        if (length != (int) otherRef) return false;
+        return data.slice((int) (ref >>> 32), length).equals(other.slice((int) (otherRef >>> 32), length));
+    }
+}
@@ -0,0 +1,166 @@
+package manager;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import util.CsvReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Параллельный разбор CSV-снимка. Файл читается в кучу целиком и делится на куски по границам записей;
+ * куски разбираются в ForkJoinPool независимо друг от друга и от порядка строк — связывание
+ * подзадач с эпиками остаётся вызывающему. Файл не отображается в память: отображение без публичного
+ * unmap живёт до сборки мусора и держит уже заменённый снимок, а копия в куче уходит вместе с разбором.
+ * <p>
+ * Перевод строки внутри кавычек не граница записи, поэтому сначала параллельно считаются кавычки
+ * в каждом куске: чётность их числа до начала куска говорит, открыто ли в нём закавыченное поле.
+ */
+final class ParallelCsvLoader {
+
+    record Result(List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) {
+    }
+
+    private ParallelCsvLoader() {
+    }
+
+    static Result load(Path file, int chunkBytes, Function<CsvReader, Task> parser) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        int size = data.limit();
+        int chunks = (int) Math.max(1, Math.min((long) ForkJoinPool.getCommonPoolParallelism() * 4,
+                size / Math.max(chunkBytes, 1)));
+        int[] boundaries = boundaries(data, chunks);
+
+        List<Callable<Result>> parsers = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = boundaries[i];
+            int to = boundaries[i + 1];
+            boolean skipHeader = i == 0;
+            parsers.add(() -> parse(data.slice(from, to - from), skipHeader, parser));
+        }
+
+        List<Task> tasks = new ArrayList<>();
+        List<Epic> epics = new ArrayList<>();
+        List<Subtask> subtasks = new ArrayList<>();
+        for (Result part : invokeAll(parsers)) {
+            tasks.addAll(part.tasks());
+            epics.addAll(part.epics());
+            subtasks.addAll(part.subtasks());
+        }
+        return new Result(tasks, epics, subtasks);
+    }
+
+    private static int[] boundaries(ByteBuffer data, int chunks) throws IOException {
+        int size = data.limit();
+        int[] boundaries = new int[chunks + 1];
+        boundaries[chunks] = size;
+        if (chunks == 1) return boundaries;
+
+        List<Callable<Integer>> counters = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int from = (int) ((long) size * i / chunks);
+            int to = (int) ((long) size * (i + 1) / chunks);
+            counters.add(() -> countQuotes(data, from, to));
+        }
+        List<Integer> quotes = invokeAll(counters);
+
+        boolean inQuotes = false;
+        for (int i = 1; i < chunks; i++) {
+            inQuotes ^= (quotes.get(i - 1) & 1) != 0;
+            int from = (int) ((long) size * i / chunks);
+            boundaries[i] = from < boundaries[i - 1]
+                    ? boundaries[i - 1] // предыдущая запись заняла весь кусок
+                    : nextRecordStart(data, from, inQuotes);
+        }
+        return boundaries;
+    }
+
+    private static int countQuotes(ByteBuffer data, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == '"') count++;
+        }
+        return count;
+    }
+
+    private static int nextRecordStart(ByteBuffer data, int from, boolean inQuotes) {
+        int size = data.limit();
+        for (int i = from; i < size; i++) {
+            byte b = data.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                return i + 1;
+            }
+        }
+        return size;
+    }
+
+    private static Result parse(ByteBuffer chunk, boolean skipHeader, Function<CsvReader, Task> parser)
+            throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        List<Epic> epics = new ArrayList<>();
+        List<Subtask> subtasks = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(stream(chunk), StandardCharsets.UTF_8))) {
+            if (skipHeader) {
+                reader.next();
+            }
+            while (reader.next()) {
+                Task task = parser.apply(reader);
+                switch (task.getType()) {
+                    case TASK -> tasks.add(task);
+                    case EPIC -> epics.add((Epic) task);
+                    case SUBTASK -> subtasks.add((Subtask) task);
+                }
+            }
+        }
+        return new Result(tasks, epics, subtasks);
+    }
+
+    private static <T> List<T> invokeAll(List<Callable<T>> jobs) throws IOException {
+        List<T> results = new ArrayList<>(jobs.size());
+        try {
+            for (Future<T> future : ForkJoinPool.commonPool().invokeAll(jobs)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Загрузка прервана", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(e.getCause());
+        }
+        return results;
+    }
+
+    private static InputStream stream(ByteBuffer chunk) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return chunk.hasRemaining() ? chunk.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (!chunk.hasRemaining()) return -1;
+                int n = Math.min(length, chunk.remaining());
+                chunk.get(bytes, offset, n);
+                return n;
+            }
+        };
+    }
+}
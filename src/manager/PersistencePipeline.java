@@ -0,0 +1,286 @@
+package manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отложенная запись на диск. Вызывающий поток только ставит запись в очередь и получает future,
+ * а поток-писатель забирает всё накопившееся и пишет одной пачкой: записи журнала — одним write,
+ * из нескольких снимков подряд — только последний.
+ */
+class PersistencePipeline implements Closeable {
+
+    private enum Kind {
+        RECORD,
+        SNAPSHOT,
+        FLUSH,
+        ROTATE,
+        CLOSE
+    }
+
+    private record Entry(Kind kind, String record, byte[] snapshot, CompletableFuture<Void> done) {
+    }
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Path rotatedFile;
+    private final DurabilityPolicy durability;
+    private final SnapshotPolicy snapshotPolicy;
+    private final Runnable onRotationDue;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+    private final Thread writer;
+    private FileChannel log;
+    private int recordsSinceRotation;
+    private long nextGroupSync;
+    private volatile boolean closed;
+    private CompletableFuture<Void> closing;
+
+    PersistencePipeline(Path snapshotFile, Path logFile, Path rotatedFile, DurabilityPolicy durability,
+                        SnapshotPolicy snapshotPolicy, Runnable onRotationDue) {
+        this.snapshotFile = snapshotFile;
+        this.logFile = logFile;
+        this.rotatedFile = rotatedFile;
+        this.durability = durability;
+        this.snapshotPolicy = snapshotPolicy;
+        this.onRotationDue = onRotationDue;
+        this.writer = new Thread(this::run, "persistence-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    CompletableFuture<Void> appendRecord(String record) {
+        return enqueue(new Entry(Kind.RECORD, record, null, new CompletableFuture<>()));
+    }
+
+    CompletableFuture<Void> writeSnapshot(byte[] content) {
+        return enqueue(new Entry(Kind.SNAPSHOT, null, content, new CompletableFuture<>()));
+    }
+
+    /**
+     * Завершается, когда всё поставленное ранее записано и сброшено на диск.
+     * После закрытия возвращает future закрытия: к нему очередь уже дописана.
+     */
+    synchronized CompletableFuture<Void> flush() {
+        if (closed) return closing;
+        return enqueue(marker(Kind.FLUSH));
+    }
+
+    /**
+     * Закрывает текущий журнал и переименовывает его в rotatedFile, если предыдущий
+     * запечатанный сегмент уже свёрнут.
+     */
+    CompletableFuture<Void> rotate() {
+        return enqueue(marker(Kind.ROTATE));
+    }
+
+    /**
+     * Дописывает очередь, сбрасывает журнал и останавливает поток-писатель. Поток-писатель — демон:
+     * без явного закрытия очередь при выходе из JVM теряется, поэтому обработчик завершения
+     * регистрирует приложение (см. {@code HttpTaskServer.main}), а не каждое хранилище.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            if (closed) return;
+            done = enqueue(marker(Kind.CLOSE));
+            closing = done;
+            closed = true;
+        }
+        try {
+            done.join();
+        } finally {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Entry marker(Kind kind) {
+        return new Entry(kind, null, null, new CompletableFuture<>());
+    }
+
+    private synchronized CompletableFuture<Void> enqueue(Entry entry) {
+        if (closed) {
+            throw new ManagerSaveException("Запись после закрытия хранилища", null);
+        }
+        queue.add(entry);
+        return entry.done();
+    }
+
+    private void run() {
+        List<Entry> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                Entry first = unsynced.isEmpty()
+                        ? queue.take()
+                        : queue.poll(nextGroupSync - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                running = process(batch);
+                if (!unsynced.isEmpty() && System.nanoTime() - nextGroupSync >= 0) {
+                    syncLog();
+                }
+            } catch (RuntimeException e) {
+                // неожиданная ошибка не должна останавливать писателя: ожидающие узнают о ней из future
+                ManagerSaveException failure = new ManagerSaveException("Ошибка в потоке записи", e);
+                batch.forEach(entry -> entry.done().completeExceptionally(failure));
+                unsynced.forEach(done -> done.completeExceptionally(failure));
+                unsynced.clear();
+                running = batch.stream().noneMatch(entry -> entry.kind() == Kind.CLOSE);
+            }
+            batch.clear();
+        }
+        ManagerSaveException stopped = new ManagerSaveException("Поток записи остановлен", null);
+        unsynced.forEach(done -> done.completeExceptionally(stopped));
+        queue.forEach(entry -> entry.done().completeExceptionally(stopped));
+    }
+
+    private boolean process(List<Entry> batch) {
+        StringBuilder records = new StringBuilder();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        byte[] snapshot = null;
+        int recordCount = 0;
+
+        for (Entry entry : batch) {
+            switch (entry.kind()) {
+                case RECORD -> {
+                    records.append(entry.record()).append('\n');
+                    pending.add(entry.done());
+                    recordCount++;
+                }
+                case SNAPSHOT -> {
+                    snapshot = entry.snapshot();
+                    pending.add(entry.done());
+                }
+                default -> {
+                    commit(records, recordCount, snapshot, pending);
+                    records.setLength(0);
+                    recordCount = 0;
+                    snapshot = null;
+                    pending = new ArrayList<>();
+                    try {
+                        barrier(entry.kind());
+                        entry.done().complete(null);
+                    } catch (IOException e) {
+                        entry.done().completeExceptionally(
+                                new ManagerSaveException("Ошибка при записи в журнал изменений", e));
+                    }
+                    if (entry.kind() == Kind.CLOSE) return false;
+                }
+            }
+        }
+        commit(records, recordCount, snapshot, pending);
+        return true;
+    }
+
+    private void commit(StringBuilder records, int recordCount, byte[] snapshot,
+                        List<CompletableFuture<Void>> pending) {
+        if (pending.isEmpty()) return;
+        try {
+            if (snapshot != null) {
+                writeAtomically(snapshotFile, snapshot, durability.mode() != DurabilityPolicy.Mode.NONE);
+            }
+            if (recordCount > 0) {
+                appendToLog(records);
+                recordsSinceRotation += recordCount;
+                if (durability.mode() == DurabilityPolicy.Mode.SYNC) {
+                    log.force(false);
+                } else if (durability.mode() == DurabilityPolicy.Mode.GROUP) {
+                    if (unsynced.isEmpty()) {
+                        nextGroupSync = System.nanoTime() + durability.groupInterval().toNanos();
+                    }
+                    unsynced.addAll(pending);
+                    pending = List.of();
+                }
+            }
+            pending.forEach(done -> done.complete(null));
+        } catch (IOException e) {
+            ManagerSaveException failure = new ManagerSaveException("Ошибка при записи в журнал изменений", e);
+            pending.forEach(done -> done.completeExceptionally(failure));
+        }
+        if (!closed && snapshotPolicy.isRecordTriggered(recordsSinceRotation)) {
+            try {
+                onRotationDue.run();
+            } catch (RuntimeException e) {
+                System.out.println("Ошибка при создании снимка: " + e.getMessage());
+            }
+        }
+    }
+
+    private void barrier(Kind kind) throws IOException {
+        syncLog();
+        if (kind == Kind.FLUSH) return;
+
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+        if (kind == Kind.ROTATE && !Files.exists(rotatedFile) && Files.exists(logFile)) {
+            Files.move(logFile, rotatedFile, StandardCopyOption.ATOMIC_MOVE);
+            recordsSinceRotation = 0;
+        }
+    }
+
+    private void syncLog() {
+        if (unsynced.isEmpty()) return;
+        try {
+            log.force(false);
+            unsynced.forEach(done -> done.complete(null));
+        } catch (IOException e) {
+            ManagerSaveException failure = new ManagerSaveException("Ошибка при сбросе журнала на диск", e);
+            unsynced.forEach(done -> done.completeExceptionally(failure));
+        }
+        unsynced.clear();
+    }
+
+    private void appendToLog(CharSequence records) throws IOException {
+        if (log == null) {
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(records));
+        while (bytes.hasRemaining()) {
+            log.write(bytes);
+        }
+    }
+
+    static void writeAtomically(Path target, byte[] content, boolean force) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bytes = ByteBuffer.wrap(content);
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (force) {
+                channel.force(true);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,10 @@
+package manager;
+
+import model.TaskType;
+
+/**
+ * Результат {@link TaskManager#search}: задача, её название, отрывок текста вокруг первого
+ * совпадения и вес, по которому результаты упорядочены.
+ */
+public record SearchHit(int id, TaskType type, String name, String snippet, double score) {
+}
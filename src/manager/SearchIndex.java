@@ -0,0 +1,234 @@
+package manager;
+
+import model.Task;
+import model.TaskType;
+import util.IntIntHashMap;
+import util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Инвертированный индекс по названиям и описаниям: слово → (id → вес). Слово в названии весит
+ * {@value #NAME_WEIGHT}, в описании — 1, вес задачи по слову — сумма вхождений. Слова отсортированы,
+ * поэтому последнее слово запроса ищется как префикс (автодополнение). Для каждой задачи
+ * запоминаются её слова, чтобы при замене или удалении убрать её из списков.
+ * <p>
+ * Индекс заполняется при загрузке вместе с остальными зеркалами, поэтому ленивые описания
+ * читаются уже там, а первый поиск не ждёт построения.
+ */
+final class SearchIndex implements TaskMirror {
+
+    static final int NAME_WEIGHT = 3;
+    // веса префиксного слова складываются в int, поэтому idf хранится с таким множителем
+    private static final double SCALE = 1000;
+    private static final int SNIPPET_BEFORE = 30;
+    private static final int SNIPPET_AFTER = 50;
+    // короткий префикс совпадает с тысячами слов; сливаются только самые частые из них
+    static final int MAX_PREFIX_TERMS = 64;
+
+    private record Doc(TaskType type, String[] terms) {
+    }
+
+    /**
+     * Слово запроса: списки, в которых ищется задача, и множитель веса.
+     */
+    private record QueryTerm(IntIntHashMap postings, double multiplier) {
+        double score(int id) {
+            int weight = postings.get(id);
+            return weight < 0 ? 0 : weight * multiplier;
+        }
+    }
+
+    // те же списки, что в sorted: точный поиск и обновление идут по хешу, дерево — только для префиксов
+    private final HashMap<String, IntIntHashMap> terms = new HashMap<>();
+    private final TreeMap<String, IntIntHashMap> sorted = new TreeMap<>();
+    private final IntObjectHashMap<Doc> docs = new IntObjectHashMap<>();
+
+    @Override
+    public void put(Task task) {
+        remove(task.getId());
+        Map<String, Integer> weights = new HashMap<>();
+        for (String term : tokenize(task.getName())) {
+            weights.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : tokenize(task.getDescription())) {
+            weights.merge(term, 1, Integer::sum);
+        }
+        weights.forEach((term, weight) -> terms.computeIfAbsent(term, this::newTerm).put(task.getId(), weight));
+        docs.put(task.getId(), new Doc(task.getType(), weights.keySet().toArray(new String[0])));
+    }
+
+    private IntIntHashMap newTerm(String term) {
+        IntIntHashMap postings = new IntIntHashMap();
+        sorted.put(term, postings);
+        return postings;
+    }
+
+    @Override
+    public void remove(int id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) return;
+        for (String term : doc.terms()) {
+            IntIntHashMap postings = terms.get(term);
+            postings.remove(id);
+            if (postings.isEmpty()) {
+                terms.remove(term);
+                sorted.remove(term);
+            }
+        }
+    }
+
+    @Override
+    public void removeType(TaskType type) {
+        for (int id : docs.keys()) {
+            if (docs.get(id).type() == type) remove(id);
+        }
+    }
+
+    @Override
+    public void clear() {
+        terms.clear();
+        sorted.clear();
+        docs.clear();
+    }
+
+    record Match(int id, double score) {
+    }
+
+    private static final Comparator<Match> RANK = Comparator.comparingDouble(Match::score).reversed()
+            .thenComparingInt(Match::id);
+
+    /**
+     * До limit задач, содержащих все слова запроса (последнее — как префикс), по убыванию веса
+     * Σ вес·idf, при равенстве — по id. Перебираются задачи самого короткого из списков.
+     */
+    List<Match> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) return List.of();
+        List<QueryTerm> parsed = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            QueryTerm term = i == tokens.size() - 1 ? prefixTerm(tokens.get(i)) : exactTerm(tokens.get(i));
+            if (term == null) return List.of();
+            parsed.add(term);
+        }
+        QueryTerm driver = parsed.get(0);
+        for (QueryTerm term : parsed) {
+            if (term.postings().size() < driver.postings().size()) driver = term;
+        }
+
+        PriorityQueue<Match> best = new PriorityQueue<>(RANK.reversed());
+        driver.postings().forEachKey(id -> {
+            double score = 0;
+            for (QueryTerm term : parsed) {
+                double termScore = term.score(id);
+                if (termScore == 0) return;
+                score += termScore;
+            }
+            Match match = new Match(id, score / SCALE);
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (RANK.compare(match, best.peek()) < 0) {
+                best.poll();
+                best.add(match);
+            }
+        });
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANK);
+        return ranked;
+    }
+
+    private QueryTerm exactTerm(String token) {
+        IntIntHashMap postings = terms.get(token);
+        return postings == null ? null : new QueryTerm(postings, idf(postings) * SCALE);
+    }
+
+    /**
+     * Списки слов с префиксом prefix, слитые в один; вес уже умножен на idf своего слова.
+     * Из совпавших слов берутся не больше {@value #MAX_PREFIX_TERMS} с самыми длинными списками.
+     */
+    private QueryTerm prefixTerm(String prefix) {
+        Map<String, IntIntHashMap> matching = sorted.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (matching.isEmpty()) return null;
+        if (matching.size() == 1) return exactTerm(matching.keySet().iterator().next());
+        Iterable<IntIntHashMap> selected = matching.size() <= MAX_PREFIX_TERMS
+                ? matching.values()
+                : mostFrequent(matching.values());
+        IntIntHashMap merged = new IntIntHashMap();
+        for (IntIntHashMap postings : selected) {
+            double idf = idf(postings);
+            postings.forEachKey(id -> {
+                int weight = (int) Math.round(postings.get(id) * idf * SCALE);
+                int previous = merged.get(id);
+                merged.put(id, previous < 0 ? weight : previous + weight);
+            });
+        }
+        return new QueryTerm(merged, 1);
+    }
+
+    private static List<IntIntHashMap> mostFrequent(Iterable<IntIntHashMap> candidates) {
+        PriorityQueue<IntIntHashMap> top = new PriorityQueue<>(Comparator.comparingInt(IntIntHashMap::size));
+        for (IntIntHashMap postings : candidates) {
+            if (top.size() < MAX_PREFIX_TERMS) {
+                top.add(postings);
+            } else if (postings.size() > top.peek().size()) {
+                top.poll();
+                top.add(postings);
+            }
+        }
+        return new ArrayList<>(top);
+    }
+
+    private double idf(IntIntHashMap postings) {
+        return Math.log(1 + (double) docs.size() / postings.size());
+    }
+
+    /**
+     * Слова текста: последовательности букв и цифр в нижнем регистре.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (token.length() > 0) tokens.add(token.toString());
+        return tokens;
+    }
+
+    /**
+     * Отрывок text вокруг первого вхождения одного из слов запроса (без учёта регистра);
+     * без вхождений — начало текста.
+     */
+    static String snippet(String text, String query) {
+        if (text == null || text.isEmpty()) return "";
+        int match = -1;
+        for (String token : tokenize(query)) {
+            int at = indexOfIgnoreCase(text, token);
+            if (at >= 0 && (match < 0 || at < match)) match = at;
+        }
+        int from = Math.max(0, match - SNIPPET_BEFORE);
+        int to = Math.min(text.length(), Math.max(match, 0) + SNIPPET_AFTER);
+        return (from > 0 ? "…" : "") + text.substring(from, to) + (to < text.length() ? "…" : "");
+    }
+
+    private static int indexOfIgnoreCase(String text, String token) {
+        for (int i = 0; i + token.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, token, 0, token.length())) return i;
+        }
+        return -1;
+    }
+}
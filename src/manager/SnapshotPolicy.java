@@ -0,0 +1,28 @@
+package manager;
+
+import java.time.Duration;
+
+/**
+ * Когда сворачивать журнал изменений в снимок: после maxRecords записей и/или
+ * не реже чем раз в interval. Нулевое/отсутствующее значение отключает соответствующий триггер.
+ */
+public record SnapshotPolicy(int maxRecords, Duration interval) {
+
+    public static final SnapshotPolicy DISABLED = new SnapshotPolicy(0, null);
+
+    public static SnapshotPolicy everyRecords(int maxRecords) {
+        return new SnapshotPolicy(maxRecords, null);
+    }
+
+    public static SnapshotPolicy every(Duration interval) {
+        return new SnapshotPolicy(0, interval);
+    }
+
+    boolean isRecordTriggered(int records) {
+        return maxRecords > 0 && records >= maxRecords;
+    }
+
+    boolean isTimeTriggered() {
+        return interval != null && !interval.isZero() && !interval.isNegative();
+    }
+}
@@ -0,0 +1,74 @@
+package manager;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище, в которое InMemoryTaskManager записывает каждое изменение. Реализация сама решает,
+ * писать ли изменение точечно или сохранять состояние целиком, — для этого ей передаётся
+ * текущее состояние менеджера.
+ */
+public interface StorageBackend extends Closeable {
+
+    /**
+     * Хранилище, которое ничего не сохраняет.
+     */
+    StorageBackend NONE = new StorageBackend() {
+        private final CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+
+        @Override
+        public void load(Consumer<Change> sink) {
+        }
+
+        @Override
+        public CompletableFuture<Void> write(Change change, State state) {
+            return done;
+        }
+    };
+
+    /**
+     * Состояние менеджера на момент записи изменения. Коллекции — представления, а не копии:
+     * читать их можно только внутри вызова {@link #write}.
+     */
+    interface State {
+        Collection<Task> tasks();
+
+        Collection<Epic> epics();
+
+        Collection<Subtask> subtasks();
+    }
+
+    /**
+     * Передаёт сохранённое состояние как последовательность изменений; эпик приходит
+     * раньше своих подзадач.
+     */
+    void load(Consumer<Change> sink);
+
+    /**
+     * Вызывается один раз после загрузки с восстановленным состоянием.
+     */
+    default void loaded(State state) {
+    }
+
+    /**
+     * Сохраняет изменение, которое уже применено к state. Future завершается, когда изменение записано.
+     */
+    CompletableFuture<Void> write(Change change, State state);
+
+    /**
+     * Завершается, когда записано всё, что передано раньше.
+     */
+    default CompletableFuture<Void> flush() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    default void close() {
+    }
+}
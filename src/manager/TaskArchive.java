@@ -0,0 +1,314 @@
+package manager;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+import util.IntHashSet;
+import util.IntObjectHashMap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Холодное хранилище завершённых задач. Задачи архивируются пачками: пачка — двоичный снимок
+ * ({@link BinarySnapshotFormat}), сжатый Deflater; в памяти лежат только сжатые байты и индекс
+ * id → пачка. В файле пачки идут подряд с длиной (4 байта) перед каждой, новая дописывается в конец;
+ * недописанный хвост после сбоя отбрасывается при открытии. Без файла архив живёт только в памяти.
+ * <p>
+ * Единица архивации — задача или эпик вместе со всеми подзадачами. Класс не потокобезопасен.
+ */
+final class TaskArchive {
+
+    private static final class Batch {
+        final byte[] compressed;
+
+        Batch(byte[] compressed) {
+            this.compressed = compressed;
+        }
+    }
+
+    private final Path file;
+    private final List<Batch> batches = new ArrayList<>();
+    private final IntObjectHashMap<Batch> index = new IntObjectHashMap<>();
+    private int maxId;
+
+    TaskArchive(Path file) {
+        this.file = file;
+        if (file != null && Files.exists(file)) {
+            read();
+        }
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    boolean contains(int id) {
+        return index.containsKey(id);
+    }
+
+    /**
+     * Наибольший id, когда-либо попадавший в архив: новые задачи не должны его переиспользовать.
+     */
+    int maxId() {
+        return maxId;
+    }
+
+    Task get(int id) {
+        Batch batch = index.get(id);
+        if (batch == null) return null;
+        for (Task task : decode(batch)) {
+            if (task.getId() == id) return task;
+        }
+        return null;
+    }
+
+    List<Task> getAll() {
+        List<Task> result = new ArrayList<>(index.size());
+        for (Batch batch : batches) {
+            result.addAll(decode(batch));
+        }
+        return result;
+    }
+
+    /**
+     * Сохраняет пачку и, если архив в файле, сбрасывает её на диск до возврата.
+     */
+    void add(Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks) {
+        if (tasks.isEmpty() && epics.isEmpty()) return;
+        Batch batch = new Batch(deflate(BinarySnapshotFormat.encode(tasks, epics, subtasks)));
+        if (file != null) {
+            append(batch);
+        }
+        register(batch, tasks);
+        register(batch, epics);
+        register(batch, subtasks);
+        batches.add(batch);
+    }
+
+    /**
+     * Задача или эпик с подзадачами (для id подзадачи — её эпик), в которую входит id: эпик идёт
+     * первым. Пустой список, если id в архиве нет.
+     */
+    List<Task> unit(int id) {
+        Batch batch = index.get(id);
+        if (batch == null) return List.of();
+        List<Task> content = decode(batch);
+        int unitId = unitId(content, id);
+        List<Task> unit = new ArrayList<>();
+        for (Task task : content) {
+            if (inUnit(task, unitId)) unit.add(task);
+        }
+        return unit;
+    }
+
+    /**
+     * Убирает из архива то же, что вернул бы {@link #unit(int)}, и переписывает файл.
+     */
+    void remove(int id) {
+        IntHashSet ids = new IntHashSet(1);
+        ids.add(id);
+        removeAll(ids);
+    }
+
+    /**
+     * Как {@link #remove(int)} для каждого id, но каждая затронутая пачка перепаковывается и файл
+     * переписывается только один раз.
+     */
+    void removeAll(IntHashSet ids) {
+        Map<Batch, IntHashSet> affected = new IdentityHashMap<>();
+        ids.forEach(id -> {
+            Batch batch = index.get(id);
+            if (batch != null) affected.computeIfAbsent(batch, b -> new IntHashSet()).add(id);
+        });
+        if (affected.isEmpty()) return;
+        affected.forEach(this::repack);
+        if (file != null) {
+            rewrite();
+        }
+    }
+
+    private void repack(Batch batch, IntHashSet ids) {
+        List<Task> content = decode(batch);
+        IntHashSet unitIds = new IntHashSet(ids.size());
+        ids.forEach(id -> unitIds.add(unitId(content, id)));
+
+        List<Task> tasks = new ArrayList<>();
+        List<Task> epics = new ArrayList<>();
+        List<Task> subtasks = new ArrayList<>();
+        for (Task task : content) {
+            if (inUnit(task, unitIds)) {
+                index.remove(task.getId());
+                continue;
+            }
+            switch (task.getType()) {
+                case TASK -> tasks.add(task);
+                case EPIC -> epics.add(task);
+                case SUBTASK -> subtasks.add(task);
+            }
+        }
+
+        int position = batches.indexOf(batch);
+        if (tasks.isEmpty() && epics.isEmpty()) {
+            batches.remove(position);
+        } else {
+            Batch rest = new Batch(deflate(BinarySnapshotFormat.encode(tasks, epics, subtasks)));
+            batches.set(position, rest);
+            register(rest, tasks);
+            register(rest, epics);
+            register(rest, subtasks);
+        }
+    }
+
+    private static int unitId(List<Task> content, int id) {
+        for (Task task : content) {
+            if (task.getId() == id && task.getType() == TaskType.SUBTASK) {
+                return ((Subtask) task).getEpicId();
+            }
+        }
+        return id;
+    }
+
+    private static boolean inUnit(Task task, int unitId) {
+        return task.getId() == unitId
+                || task.getType() == TaskType.SUBTASK && ((Subtask) task).getEpicId() == unitId;
+    }
+
+    private static boolean inUnit(Task task, IntHashSet unitIds) {
+        return unitIds.contains(task.getId())
+                || task.getType() == TaskType.SUBTASK && unitIds.contains(((Subtask) task).getEpicId());
+    }
+
+    private void register(Batch batch, Collection<? extends Task> tasks) {
+        for (Task task : tasks) {
+            index.put(task.getId(), batch);
+            maxId = Math.max(maxId, task.getId());
+        }
+    }
+
+    private static List<Task> decode(Batch batch) {
+        List<Task> tasks = new ArrayList<>();
+        IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
+        BinarySnapshotFormat.decode(ByteBuffer.wrap(inflate(batch.compressed)), task -> {
+            // эпики в пачке идут до подзадач — собираем список подзадач обратно
+            if (task.getType() == TaskType.EPIC) {
+                epics.put(task.getId(), (Epic) task);
+            } else if (task.getType() == TaskType.SUBTASK) {
+                Epic epic = epics.get(((Subtask) task).getEpicId());
+                if (epic != null) epic.addSubtaskId(task.getId());
+            }
+            tasks.add(task);
+        });
+        return tasks;
+    }
+
+    private void read() {
+        try {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+            int valid = 0;
+            while (data.remaining() >= Integer.BYTES) {
+                int length = data.getInt();
+                if (length < 0 || length > data.remaining()) break;
+                byte[] compressed = new byte[length];
+                data.get(compressed);
+                Batch batch = new Batch(compressed);
+                for (Task task : decode(batch)) {
+                    index.put(task.getId(), batch);
+                    maxId = Math.max(maxId, task.getId());
+                }
+                batches.add(batch);
+                valid = data.position();
+            }
+            if (valid < data.limit()) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new ManagerSaveException("Ошибка при чтении архива " + file, e);
+        }
+    }
+
+    private void append(Batch batch) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer frame = frame(batch);
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в архив " + file, e);
+        }
+    }
+
+    private void rewrite() {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (Batch batch : batches) {
+            ByteBuffer frame = frame(batch);
+            content.write(frame.array(), 0, frame.limit());
+        }
+        try {
+            PersistencePipeline.writeAtomically(file, content.toByteArray(), true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка при записи в архив " + file, e);
+        }
+    }
+
+    private static ByteBuffer frame(Batch batch) {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + batch.compressed.length);
+        frame.putInt(batch.compressed.length).put(batch.compressed);
+        return frame.flip();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Пачка архива повреждена");
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Пачка архива повреждена", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package manager;
+
+import model.Status;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+import util.IntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Колоночная копия задач для отчётов: по массиву примитивов на поле, по строке на задачу.
+ * Удалённая строка замещается последней, поэтому порядок строк произвольный. Запросы — простые
+ * циклы со счётчиком, которые читают массивы подряд и не разыменовывают объекты задач.
+ */
+final class TaskColumns implements TaskMirror {
+
+    private static final byte EPIC = (byte) TaskType.EPIC.ordinal();
+    private static final int STATUS_COUNT = Status.values().length;
+
+    private final IntIntHashMap rows = new IntIntHashMap();
+    private int[] ids;
+    private byte[] types;
+    private byte[] statuses;
+    private long[] starts;
+    private long[] durations;
+    private int[] epicIds;
+    private int size;
+
+    TaskColumns(int capacity) {
+        allocate(Math.max(capacity, 16));
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void put(Task task) {
+        int row = rows.get(task.getId());
+        if (row < 0) {
+            if (size == ids.length) {
+                grow();
+            }
+            row = size++;
+            rows.put(task.getId(), row);
+        }
+        ids[row] = task.getId();
+        types[row] = (byte) task.getType().ordinal();
+        statuses[row] = (byte) task.getStatus().ordinal();
+        starts[row] = task.getStartMinute();
+        durations[row] = task.getDurationMinutes();
+        epicIds[row] = task.getType() == TaskType.SUBTASK ? ((Subtask) task).getEpicId() : -1;
+    }
+
+    @Override
+    public void remove(int id) {
+        int row = rows.remove(id);
+        if (row < 0) return;
+        int last = --size;
+        if (row != last) {
+            ids[row] = ids[last];
+            types[row] = types[last];
+            statuses[row] = statuses[last];
+            starts[row] = starts[last];
+            durations[row] = durations[last];
+            epicIds[row] = epicIds[last];
+            rows.put(ids[row], row);
+        }
+    }
+
+    @Override
+    public void removeType(TaskType type) {
+        byte code = (byte) type.ordinal();
+        for (int row = size - 1; row >= 0; row--) {
+            if (types[row] == code) remove(ids[row]);
+        }
+    }
+
+    @Override
+    public void clear() {
+        rows.clear();
+        size = 0;
+    }
+
+    /**
+     * Сумма длительностей задач и подзадач по статусам (индекс — ordinal статуса); эпики не считаются,
+     * их длительность — уже сумма подзадач.
+     */
+    long[] minutesByStatus() {
+        long[] sums = new long[STATUS_COUNT];
+        for (int status = 0; status < STATUS_COUNT; status++) {
+            sums[status] = sumMinutes((byte) status);
+        }
+        return sums;
+    }
+
+    private long sumMinutes(byte status) {
+        long sum = 0;
+        for (int row = 0; row < size; row++) {
+            long minutes = durations[row];
+            boolean counted = statuses[row] == status & types[row] != EPIC & minutes != Task.NO_TIME;
+            sum += counted ? minutes : 0;
+        }
+        return sum;
+    }
+
+    /**
+     * id задач и подзадач, начинающихся в [from, to) (в минутах от эпохи), в порядке строк.
+     */
+    int[] startingBetween(long from, long to) {
+        int[] found = new int[16];
+        int n = 0;
+        for (int row = 0; row < size; row++) {
+            long start = starts[row];
+            if (start >= from & start < to & types[row] != EPIC & start != Task.NO_TIME) {
+                if (n == found.length) found = Arrays.copyOf(found, n * 2);
+                found[n++] = ids[row];
+            }
+        }
+        return Arrays.copyOf(found, n);
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        types = Arrays.copyOf(types, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        epicIds = Arrays.copyOf(epicIds, capacity);
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        types = new byte[capacity];
+        statuses = new byte[capacity];
+        starts = new long[capacity];
+        durations = new long[capacity];
+        epicIds = new int[capacity];
+    }
+}
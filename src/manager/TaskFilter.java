@@ -0,0 +1,44 @@
+package manager;
+
+import model.EpochMinutes;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Условия выборки {@link TaskManager#getPage}; null — условие не задано. epicId — подзадачи эпика,
+ * from и to — начало в [from, to), задачи без начала в такую выборку не попадают.
+ */
+public record TaskFilter(TaskType type, Status status, Integer epicId, LocalDateTime from, LocalDateTime to) {
+
+    public static TaskFilter all() {
+        return new TaskFilter(null, null, null, null, null);
+    }
+
+    public static TaskFilter of(TaskType type) {
+        return new TaskFilter(type, null, null, null, null);
+    }
+
+    public boolean hasTimeRange() {
+        return from != null || to != null;
+    }
+
+    long fromMinute() {
+        return from != null ? EpochMinutes.ceil(from) : Long.MIN_VALUE;
+    }
+
+    long toMinute() {
+        return to != null ? EpochMinutes.ceil(to) : Long.MAX_VALUE;
+    }
+
+    public boolean matches(Task task) {
+        if (type != null && task.getType() != type) return false;
+        if (status != null && task.getStatus() != status) return false;
+        if (epicId != null && !(task instanceof Subtask subtask && subtask.getEpicId() == epicId)) return false;
+        if (!hasTimeRange()) return true;
+        return task.hasStartTime() && task.getStartMinute() >= fromMinute() && task.getStartMinute() < toMinute();
+    }
+}
@@ -0,0 +1,144 @@
+package manager;
+
+import model.Status;
+import model.Task;
+import model.TaskType;
+import util.IntHashSet;
+import util.IntObjectHashMap;
+
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Вторичные индексы для {@link TaskFilter}: id по типу и статусу и id по минуте начала для всех
+ * типов, включая эпики. Прежние тип, статус и начало каждой задачи запоминаются, чтобы при
+ * замене или удалении убрать её из нужных наборов.
+ */
+final class TaskIndex implements TaskMirror {
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final Status[] STATUSES = Status.values();
+
+    private record Entry(TaskType type, Status status, long start) {
+    }
+
+    private final IntObjectHashMap<Entry> entries = new IntObjectHashMap<>();
+    private final IntHashSet[][] byStatus = new IntHashSet[TYPES.length][STATUSES.length];
+    private final TreeMap<Long, IntHashSet> byStart = new TreeMap<>();
+
+    TaskIndex() {
+        for (int t = 0; t < TYPES.length; t++) {
+            for (int s = 0; s < STATUSES.length; s++) {
+                byStatus[t][s] = new IntHashSet();
+            }
+        }
+    }
+
+    @Override
+    public void put(Task task) {
+        Entry entry = new Entry(task.getType(), task.getStatus(), task.getStartMinute());
+        Entry old = entries.put(task.getId(), entry);
+        if (entry.equals(old)) return;
+        if (old != null) unindex(task.getId(), old);
+        index(task.getId(), entry);
+    }
+
+    @Override
+    public void remove(int id) {
+        Entry old = entries.remove(id);
+        if (old != null) unindex(id, old);
+    }
+
+    @Override
+    public void removeType(TaskType type) {
+        for (int id : entries.keys()) {
+            if (entries.get(id).type() == type) remove(id);
+        }
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        for (IntHashSet[] sets : byStatus) {
+            for (IntHashSet set : sets) set.clear();
+        }
+        byStart.clear();
+    }
+
+    /**
+     * Как put для каждой задачи, но без сверки с прежней записью: после clear её нет.
+     */
+    @Override
+    public void rebuild(Iterable<? extends Task> tasks, Iterable<? extends Task> epics,
+                        Iterable<? extends Task> subtasks) {
+        clear();
+        for (Iterable<? extends Task> table : List.of(tasks, epics, subtasks)) {
+            for (Task task : table) {
+                Entry entry = new Entry(task.getType(), task.getStatus(), task.getStartMinute());
+                entries.put(task.getId(), entry);
+                index(task.getId(), entry);
+            }
+        }
+    }
+
+    /**
+     * Сколько задач со статусом status; type == null — всех типов.
+     */
+    int countWithStatus(TaskType type, Status status) {
+        if (type != null) return byStatus[type.ordinal()][status.ordinal()].size();
+        int count = 0;
+        for (TaskType t : TYPES) {
+            count += byStatus[t.ordinal()][status.ordinal()].size();
+        }
+        return count;
+    }
+
+    void forEachWithStatus(TaskType type, Status status, IntConsumer action) {
+        if (type != null) {
+            byStatus[type.ordinal()][status.ordinal()].forEach(action);
+            return;
+        }
+        for (TaskType t : TYPES) {
+            byStatus[t.ordinal()][status.ordinal()].forEach(action);
+        }
+    }
+
+    /**
+     * Наборы id по минуте начала в [from, to) в порядке возрастания начала; это представление индекса.
+     */
+    NavigableMap<Long, IntHashSet> startingBetween(long from, long to) {
+        if (from >= to) return new TreeMap<>();
+        return byStart.subMap(from, true, to, false);
+    }
+
+    /**
+     * Число задач с началом в [from, to), но не больше cap: подсчёт останавливается, как только
+     * выборка по времени заведомо не меньше другой.
+     */
+    int countStartingBetween(long from, long to, int cap) {
+        int count = 0;
+        for (IntHashSet ids : startingBetween(from, to).values()) {
+            count += ids.size();
+            if (count >= cap) return cap;
+        }
+        return count;
+    }
+
+    private void index(int id, Entry entry) {
+        byStatus[entry.type().ordinal()][entry.status().ordinal()].add(id);
+        if (entry.start() != Task.NO_TIME) {
+            byStart.computeIfAbsent(entry.start(), start -> new IntHashSet()).add(id);
+        }
+    }
+
+    private void unindex(int id, Entry old) {
+        byStatus[old.type().ordinal()][old.status().ordinal()].remove(id);
+        if (old.start() != Task.NO_TIME) {
+            IntHashSet ids = byStart.get(old.start());
+            ids.remove(id);
+            if (ids.isEmpty()) byStart.remove(old.start());
+        }
+    }
+}
@@ -2,10 +2,22 @@ package manager;
 
 import model.Task;
 import model.Epic;
+import model.Status;
 import model.Subtask;
+import model.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
-
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Методы чтения возвращают замороженные задачи ({@link Task#freeze()}), которые менеджер хранит сам:
+ * их можно держать и читать из любого потока, а изменения передаются через update.
+ */
 public interface TaskManager {
 
     int addTask(Task task);
@@ -49,4 +61,88 @@ public interface TaskManager {
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit);
+
+    List<Task> getPrioritizedTasksAfter(LocalDateTime cursorStart, int cursorId, LocalDateTime to, int limit);
+
+    List<Task> getOverlappingTasks(LocalDateTime from, LocalDateTime to);
+
+    LocalDateTime findFreeSlot(LocalDateTime after, Duration duration);
+
+    /**
+     * Страница задач, подходящих под filter, в порядке sort: не больше limit задач, идущих строго
+     * после курсора (afterKey, afterId) — ключа {@link TaskSort#key} и id последней задачи
+     * предыдущей страницы.
+     */
+    List<Task> getPage(TaskFilter filter, TaskSort sort, long afterKey, int afterId, int limit);
+
+    default List<Task> getPage(TaskType type, TaskSort sort, long afterKey, int afterId, int limit) {
+        return getPage(TaskFilter.of(type), sort, afterKey, afterId, limit);
+    }
+
+    /**
+     * Первая страница.
+     */
+    default List<Task> getPage(TaskType type, TaskSort sort, int limit) {
+        return getPage(type, sort, Long.MIN_VALUE, Integer.MIN_VALUE, limit);
+    }
+
+    /**
+     * Все задачи, подходящие под filter, по возрастанию id.
+     */
+    default List<Task> findTasks(TaskFilter filter) {
+        return getPage(filter, TaskSort.ID, Long.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Полнотекстовый поиск по названиям и описаниям: задачи, содержащие все слова запроса
+     * (последнее — как префикс), не больше limit, по убыванию релевантности.
+     */
+    List<SearchHit> search(String query, int limit);
+
+    /**
+     * Суммарная длительность задач и подзадач в минутах по статусам; эпики не считаются.
+     */
+    Map<Status, Long> getPlannedMinutesByStatus();
+
+    /**
+     * Задачи и подзадачи, начинающиеся в [from, to), по возрастанию начала.
+     */
+    List<Task> getTasksStartingBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Сводка по доске; счётчики ведутся при каждом изменении, поэтому вызов не обходит задачи.
+     */
+    BoardStats getStats();
+
+    /**
+     * Запланированные минуты задач и подзадач по дням в [from, to); дни без задач пропускаются.
+     */
+    SortedMap<LocalDate, Long> getScheduledMinutesByDay(LocalDate from, LocalDate to);
+
+    /**
+     * Переносит в архив задачи и эпики (вместе с подзадачами) в статусе DONE, закончившиеся
+     * не позже before; при before == null — все DONE, в том числе без времени. Возвращает,
+     * сколько задач и эпиков перенесено.
+     */
+    int archiveDone(LocalDateTime before);
+
+    List<Task> getArchived();
+
+    Task getArchived(int id);
+
+    /**
+     * Возвращает из архива задачу или эпик с подзадачами (по id подзадачи — её эпик).
+     * Пустой список, если такого id в архиве нет.
+     */
+    List<Task> restoreArchived(int id);
+
+    /**
+     * Future последнего изменения, сделанного текущим потоком. Хранилища в памяти
+     * возвращают уже завершённый future.
+     */
+    default CompletableFuture<Void> lastCommit() {
+        return CompletableFuture.completedFuture(null);
+    }
 }
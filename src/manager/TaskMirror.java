@@ -0,0 +1,33 @@
+package manager;
+
+import model.Task;
+import model.TaskType;
+
+/**
+ * Производное представление задач, которое InMemoryTaskManager обновляет при каждом изменении.
+ */
+interface TaskMirror {
+
+    /**
+     * Добавляет задачу или заменяет прежнюю запись с тем же id.
+     */
+    void put(Task task);
+
+    void remove(int id);
+
+    void removeType(TaskType type);
+
+    void clear();
+
+    /**
+     * Заполняет зеркало заново по таблицам менеджера после загрузки; по умолчанию — clear и put
+     * каждой задачи.
+     */
+    default void rebuild(Iterable<? extends Task> tasks, Iterable<? extends Task> epics,
+                         Iterable<? extends Task> subtasks) {
+        clear();
+        tasks.forEach(this::put);
+        epics.forEach(this::put);
+        subtasks.forEach(this::put);
+    }
+}
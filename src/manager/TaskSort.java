@@ -0,0 +1,49 @@
+package manager;
+
+import model.Task;
+
+import java.util.Comparator;
+
+/**
+ * Порядок страниц {@link TaskManager#getPage}: по ключу, при равных ключах — по id. Ключ — long,
+ * поэтому курсор страницы для любого порядка — пара (ключ, id) последней задачи.
+ */
+public enum TaskSort {
+    ID {
+        @Override
+        public long key(Task task) {
+            return task.getId();
+        }
+    },
+    /**
+     * Задачи без начала идут в конце.
+     */
+    START_TIME {
+        @Override
+        public long key(Task task) {
+            return task.hasStartTime() ? task.getStartMinute() : Long.MAX_VALUE;
+        }
+    },
+    STATUS {
+        @Override
+        public long key(Task task) {
+            return task.getStatus().ordinal();
+        }
+    };
+
+    private final Comparator<Task> order = Comparator.comparingLong(this::key).thenComparingInt(Task::getId);
+
+    public abstract long key(Task task);
+
+    public Comparator<Task> order() {
+        return order;
+    }
+
+    /**
+     * Задача идёт строго после курсора (afterKey, afterId).
+     */
+    public boolean isAfter(Task task, long afterKey, int afterId) {
+        long key = key(task);
+        return key > afterKey || key == afterKey && task.getId() > afterId;
+    }
+}
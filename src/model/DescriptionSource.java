@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Хранилище описаний, которые не держатся в памяти вместе с задачей, а читаются по ссылке.
+ */
+public interface DescriptionSource {
+    String description(long ref);
+
+    /**
+     * Описание по ref больше не нужно хранимым задачам: источник может не переносить его дальше.
+     */
+    default void release(long ref) {
+    }
+}
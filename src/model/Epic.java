@@ -1,31 +1,55 @@
 package model;
 
-import java.time.Duration;
+import util.IntHashSet;
+
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 public class Epic extends Task {
-    private final List<Integer> subtaskIds = new ArrayList<>();
-    private LocalDateTime endTime;
+    private final IntHashSet subtaskIds = new IntHashSet();
+    private transient long endMinute = NO_TIME;
 
     public Epic(String name, String description, Status status) {
         super(name, description, Status.NEW);
-        this.duration = Duration.ZERO;
-        this.startTime = null;
-        this.endTime = null;
+        this.durationMinutes = 0;
     }
 
     public List<Integer> getSubtaskIds() {
-        return subtaskIds;
+        int[] ids = subtaskIds.toSortedArray();
+        List<Integer> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    public int getSubtaskCount() {
+        return subtaskIds.size();
+    }
+
+    public boolean hasSubtask(int id) {
+        return subtaskIds.contains(id);
+    }
+
+    public void forEachSubtaskId(IntConsumer action) {
+        subtaskIds.forEach(action);
     }
 
     public void addSubtaskId(int id) {
+        checkMutable();
         subtaskIds.add(id);
     }
 
     public void removeSubtaskId(int id) {
-        subtaskIds.remove((Integer) id);
+        checkMutable();
+        subtaskIds.remove(id);
+    }
+
+    public void clearSubtaskIds() {
+        checkMutable();
+        subtaskIds.clear();
     }
 
     @Override
@@ -34,12 +58,30 @@ public class Epic extends Task {
     }
 
     @Override
-    public LocalDateTime getEndTime() {
-        return endTime;
+    public Epic copy() {
+        Epic copy = new Epic(name, description, status);
+        copyStateTo(copy);
+        subtaskIds.forEach(copy.subtaskIds::add);
+        copy.endMinute = endMinute;
+        return copy;
+    }
+
+    /**
+     * У эпика окончание — самое позднее окончание подзадач, а не начало плюс длительность.
+     */
+    @Override
+    public long getEndMinute() {
+        return endMinute;
+    }
+
+    public void setEndMinute(long endMinute) {
+        checkMutable();
+        this.endMinute = endMinute;
     }
 
     public void setEndTime(LocalDateTime endTime) {
-        this.endTime = endTime;
+        checkMutable();
+        this.endMinute = EpochMinutes.of(endTime);
     }
 
     @Override
@@ -49,9 +91,9 @@ public class Epic extends Task {
                 ", name='" + getName() + '\'' +
                 ", description='" + getDescription() + '\'' +
                 ", status=" + getStatus() +
-                ", duration=" + (duration != null ? duration.toMinutes() + "m" : "null") +
-                ", startTime=" + startTime +
-                ", endTime=" + endTime +
+                ", duration=" + (durationMinutes != NO_TIME ? durationMinutes + "m" : "null") +
+                ", startTime=" + getStartTime() +
+                ", endTime=" + getEndTime() +
                 ", subtaskIds=" + subtaskIds +
                 '}';
     }
@@ -0,0 +1,46 @@
+package model;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Время задачи в минутах от 1970-01-01T00:00 (без часового пояса); {@link Task#NO_TIME} — не задано.
+ */
+public final class EpochMinutes {
+
+    // границы LocalDateTime в минутах: за ними toDateTime бросает DateTimeException
+    public static final long MIN = of(LocalDateTime.MIN);
+    public static final long MAX = of(LocalDateTime.MAX);
+
+    private EpochMinutes() {
+    }
+
+    /**
+     * Минута, в которую попадает time; секунды отбрасываются.
+     */
+    public static long of(LocalDateTime time) {
+        return time == null ? Task.NO_TIME : Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Первая целая минута не раньше time.
+     */
+    public static long ceil(LocalDateTime time) {
+        if (time == null) return Task.NO_TIME;
+        long minute = of(time);
+        return time.getSecond() == 0 && time.getNano() == 0 ? minute : minute + 1;
+    }
+
+    /**
+     * @throws DateTimeException если minute вне {@link #MIN}..{@link #MAX}; без проверки
+     *                           minute * 60 переполнился бы и дал случайную дату
+     */
+    public static LocalDateTime toDateTime(long minute) {
+        if (minute == Task.NO_TIME) return null;
+        if (minute < MIN || minute > MAX) {
+            throw new DateTimeException("Минута вне диапазона дат: " + minute);
+        }
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
@@ -17,16 +17,23 @@ public class Subtask extends Task {
         return TaskType.SUBTASK;
     }
 
+    @Override
+    public Subtask copy() {
+        Subtask copy = new Subtask(name, description, status, epicId);
+        copyStateTo(copy);
+        return copy;
+    }
+
     @Override
     public String toString() {
         return "Subtask{" +
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", status=" + status +
-                ", description='" + description + '\'' +
+                ", description='" + getDescription() + '\'' +
                 ", epicId=" + epicId +
-                ", duration=" + (duration != null ? duration.toMinutes() + "m" : "null") +
-                ", startTime=" + (startTime != null ? startTime : "null") +
+                ", duration=" + (durationMinutes != NO_TIME ? durationMinutes + "m" : "null") +
+                ", startTime=" + getStartTime() +
                 ", endTime=" + (getEndTime() != null ? getEndTime() : "null") +
                 '}';
     }
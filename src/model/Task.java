@@ -4,13 +4,26 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+/**
+ * Начало и длительность хранятся в минутах ({@link EpochMinutes}), {@link #NO_TIME} — не задано;
+ * геттеры java.time собирают объекты при каждом вызове. В JSON эти поля пишет адаптер
+ * из HttpTaskServer, поэтому они transient.
+ * <p>
+ * Задачу, которую хранит менеджер, нельзя изменить ({@link #freeze()}): сеттеры бросают
+ * IllegalStateException. Такой объект можно отдавать читателям в любых потоках без копирования;
+ * чтобы изменить задачу, меняют её {@link #copy()} и передают в update.
+ */
 public class Task {
+    public static final long NO_TIME = Long.MIN_VALUE;
+
     protected String name;
     protected String description;
     protected int id;
     protected Status status;
-    protected Duration duration;
-    protected LocalDateTime startTime;
+    protected transient long durationMinutes = NO_TIME;
+    protected transient long startMinute = NO_TIME;
+    private transient LazyDescription lazyDescription;
+    private transient boolean frozen;
 
     public Task(String name, String description, Status status) {
         this.name = name;
@@ -23,15 +36,50 @@ public class Task {
     }
 
     public void setName(String name) {
+        checkMutable();
         this.name = name;
     }
 
     public String getDescription() {
+        if (lazyDescription != null) {
+            return lazyDescription.get();
+        }
         return description;
     }
 
     public void setDescription(String description) {
+        checkMutable();
         this.description = description;
+        this.lazyDescription = null;
+    }
+
+    /**
+     * Описание не хранится в задаче, а читается из source по ссылке ref при каждом обращении.
+     */
+    public void setLazyDescription(DescriptionSource source, long ref) {
+        checkMutable();
+        this.description = null;
+        this.lazyDescription = new LazyDescription(source, ref);
+    }
+
+    public boolean hasLazyDescription() {
+        return lazyDescription != null;
+    }
+
+    /**
+     * Обе задачи читают одно ленивое описание: одна — копия другой, и описание с тех пор не задавали.
+     */
+    public boolean sharesDescription(Task other) {
+        return lazyDescription != null && other != null && other.lazyDescription == lazyDescription;
+    }
+
+    /**
+     * Читает ленивое описание в кучу и отпускает ссылку в источнике; это видят и все копии задачи,
+     * так что строка живёт, пока жива хоть одна из них. Видимое состояние не меняется, поэтому
+     * вызов допустим и у замороженной задачи.
+     */
+    public void detachDescription() {
+        if (lazyDescription != null) lazyDescription.detach();
     }
 
     public int getId() {
@@ -39,6 +87,7 @@ public class Task {
     }
 
     public void setId(int id) {
+        checkMutable();
         this.id = id;
     }
 
@@ -47,6 +96,7 @@ public class Task {
     }
 
     public void setStatus(Status status) {
+        checkMutable();
         this.status = status;
     }
 
@@ -55,25 +105,86 @@ public class Task {
     }
 
     public Duration getDuration() {
-        return duration;
+        return durationMinutes == NO_TIME ? null : Duration.ofMinutes(durationMinutes);
     }
 
     public void setDuration(Duration duration) {
-        this.duration = duration;
+        checkMutable();
+        this.durationMinutes = duration == null ? NO_TIME : duration.toMinutes();
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return EpochMinutes.toDateTime(startMinute);
     }
 
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        checkMutable();
+        this.startMinute = EpochMinutes.of(startTime);
     }
 
     public LocalDateTime getEndTime() {
-        return (startTime != null && duration != null)
-                ? startTime.plus(duration)
-                : null;
+        return EpochMinutes.toDateTime(getEndMinute());
+    }
+
+    public long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public void setDurationMinutes(long durationMinutes) {
+        checkMutable();
+        this.durationMinutes = durationMinutes;
+    }
+
+    public long getStartMinute() {
+        return startMinute;
+    }
+
+    public void setStartMinute(long startMinute) {
+        checkMutable();
+        this.startMinute = startMinute;
+    }
+
+    public boolean hasStartTime() {
+        return startMinute != NO_TIME;
+    }
+
+    public long getEndMinute() {
+        return startMinute != NO_TIME && durationMinutes != NO_TIME ? startMinute + durationMinutes : NO_TIME;
+    }
+
+    /**
+     * Запрещает дальнейшие изменения; повторный вызов ничего не делает.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Изменяемая копия с тем же id; ленивое описание копия читает из того же источника.
+     */
+    public Task copy() {
+        Task copy = new Task(name, description, status);
+        copyStateTo(copy);
+        return copy;
+    }
+
+    protected void copyStateTo(Task copy) {
+        copy.id = id;
+        copy.status = status;
+        copy.durationMinutes = durationMinutes;
+        copy.startMinute = startMinute;
+        copy.lazyDescription = lazyDescription;
+    }
+
+    protected void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Задача id=" + id + " принадлежит менеджеру и не изменяется;"
+                    + " измените copy() и передайте её в update");
+        }
     }
 
     @Override
@@ -95,9 +206,34 @@ public class Task {
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", status=" + status +
-                ", duration=" + (duration != null ? duration.toMinutes() + "m" : "null") +
-                ", startTime=" + startTime +
+                ", duration=" + (durationMinutes != NO_TIME ? durationMinutes + "m" : "null") +
+                ", startTime=" + getStartTime() +
                 ", endTime=" + getEndTime() +
                 '}';
     }
+
+    /**
+     * Ленивое описание, общее для задачи и её копий; после {@link #detach()} строка держится здесь.
+     */
+    private static final class LazyDescription {
+        private final DescriptionSource source;
+        private final long ref;
+        private volatile String detached;
+
+        LazyDescription(DescriptionSource source, long ref) {
+            this.source = source;
+            this.ref = ref;
+        }
+
+        String get() {
+            String value = detached;
+            return value != null ? value : source.description(ref);
+        }
+
+        synchronized void detach() {
+            if (detached != null) return;
+            detached = source.description(ref);
+            source.release(ref);
+        }
+    }
 }
@@ -0,0 +1,251 @@
+package util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Потоковое чтение CSV (RFC 4180) записями. Запись разбирается из буфера символов в общий
+ * массив; поля — это смещения в нём, и строка создаётся только при вызове {@link #getString}.
+ * Числа, перечисления и даты разбираются прямо из символов. Незакавыченное пустое поле — null,
+ * для типизированных полей null также обозначает литерал {@code null}. Пустые строки пропускаются.
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    private char[] record = new char[256];
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] quoted = new boolean[16];
+    private int fieldCount;
+    private boolean terminated;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Переходит к следующей записи. Возвращает false, если данные закончились.
+     */
+    public boolean next() throws IOException {
+        do {
+            if (!readRecord()) return false;
+        } while (fieldCount == 1 && length == 0 && !quoted[0] && terminated);
+        return true;
+    }
+
+    /**
+     * Закончилась ли текущая запись переводом строки. Запись, оборванная концом файла,
+     * могла быть записана не полностью.
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isNull(int field) {
+        check(field);
+        if (quoted[field]) return false;
+        int len = ends[field] - starts[field];
+        return len == 0 || (len == 4 && matches(field, "null"));
+    }
+
+    public String getString(int field) {
+        check(field);
+        if (!quoted[field] && ends[field] == starts[field]) return null;
+        return new String(record, starts[field], ends[field] - starts[field]);
+    }
+
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value != (int) value) {
+            throw new NumberFormatException("Число вне диапазона int: " + text(field));
+        }
+        return (int) value;
+    }
+
+    public long getLong(int field) {
+        check(field);
+        int i = starts[field];
+        int end = ends[field];
+        boolean negative = i < end && record[i] == '-';
+        if (negative) i++;
+        if (i == end || end - i > 18) {
+            return Long.parseLong(text(field));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Не число: " + text(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public <E extends Enum<E>> E getEnum(int field, E[] constants) {
+        check(field);
+        for (E constant : constants) {
+            if (matches(field, constant.name())) return constant;
+        }
+        throw new IllegalArgumentException("Неизвестное значение: " + text(field));
+    }
+
+    /**
+     * Разбирает дату в виде {@code yyyy-MM-ddTHH:mm[:ss]}, как её пишет {@link CsvWriter};
+     * прочие формы ISO-8601 передаются {@link LocalDateTime#parse}.
+     */
+    public LocalDateTime getDateTime(int field) {
+        check(field);
+        int s = starts[field];
+        int len = ends[field] - s;
+        if ((len == 16 || len == 19) && record[s + 4] == '-' && record[s + 7] == '-' && record[s + 10] == 'T'
+                && record[s + 13] == ':' && (len == 16 || record[s + 16] == ':')) {
+            int year = digits(s, 4);
+            int month = digits(s + 5, 2);
+            int day = digits(s + 8, 2);
+            int hour = digits(s + 11, 2);
+            int minute = digits(s + 14, 2);
+            int second = len == 19 ? digits(s + 17, 2) : 0;
+            if ((year | month | day | hour | minute | second) >= 0) {
+                return LocalDateTime.of(year, month, day, hour, minute, second);
+            }
+        }
+        return LocalDateTime.parse(CharBuffer.wrap(record, s, len));
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean readRecord() throws IOException {
+        length = 0;
+        fieldCount = 0;
+        terminated = false;
+
+        int c = read();
+        if (c < 0) return false;
+
+        beginField();
+        boolean inQuotes = false;
+        boolean atFieldStart = true;
+        while (true) {
+            if (c < 0) {
+                endField();
+                return true;
+            }
+            if (inQuotes) {
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        inQuotes = false;
+                        continue;
+                    }
+                }
+                append((char) c);
+            } else if (c == ',') {
+                endField();
+                beginField();
+                atFieldStart = true;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    pos++;
+                }
+                endField();
+                terminated = true;
+                return true;
+            } else if (c == '"' && atFieldStart) {
+                inQuotes = true;
+                quoted[fieldCount] = true;
+                atFieldStart = false;
+            } else {
+                append((char) c);
+                atFieldStart = false;
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        pos = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+
+    private void append(char c) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, length * 2);
+        }
+        record[length++] = c;
+    }
+
+    private void beginField() {
+        if (fieldCount == starts.length) {
+            int capacity = fieldCount * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            quoted = Arrays.copyOf(quoted, capacity);
+        }
+        starts[fieldCount] = length;
+        quoted[fieldCount] = false;
+    }
+
+    private void endField() {
+        ends[fieldCount++] = length;
+    }
+
+    private void check(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("В записи нет поля " + field + ", полей: " + fieldCount);
+        }
+    }
+
+    private boolean matches(int field, String expected) {
+        int len = ends[field] - starts[field];
+        if (len != expected.length()) return false;
+        for (int i = 0; i < len; i++) {
+            if (record[starts[field] + i] != expected.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = record[i] - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private String text(int field) {
+        return new String(record, starts[field], ends[field] - starts[field]);
+    }
+}
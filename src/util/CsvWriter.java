@@ -0,0 +1,109 @@
+package util;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись CSV (RFC 4180) прямо в StringBuilder: числа и даты пишутся посимвольно, строка
+ * берётся в кавычки, только если содержит запятую, кавычку или перевод строки.
+ * null пишется пустым полем, пустая строка — как {@code ""}. Пара к {@link CsvReader}.
+ */
+public class CsvWriter {
+
+    private final StringBuilder out;
+    private boolean firstField = true;
+
+    public CsvWriter(StringBuilder out) {
+        this.out = out;
+    }
+
+    public CsvWriter field(String value) {
+        separate();
+        if (value == null) return this;
+        if (value.isEmpty() || needsQuotes(value)) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    out.append('"');
+                }
+                out.append(c);
+            }
+            out.append('"');
+        } else {
+            out.append(value);
+        }
+        return this;
+    }
+
+    public CsvWriter field(long value) {
+        separate();
+        out.append(value);
+        return this;
+    }
+
+    public CsvWriter field(Enum<?> value) {
+        separate();
+        if (value != null) {
+            out.append(value.name());
+        }
+        return this;
+    }
+
+    /**
+     * Пишет дату как {@code yyyy-MM-ddTHH:mm[:ss]}; даты с долями секунды или годом вне
+     * 0000–9999 пишутся через {@link LocalDateTime#toString()}.
+     */
+    public CsvWriter field(LocalDateTime value) {
+        separate();
+        if (value == null) return this;
+        int year = value.getYear();
+        if (value.getNano() != 0 || year < 0 || year > 9999) {
+            out.append(value);
+            return this;
+        }
+        pad(year, 4).append('-');
+        pad(value.getMonthValue(), 2).append('-');
+        pad(value.getDayOfMonth(), 2).append('T');
+        pad(value.getHour(), 2).append(':');
+        pad(value.getMinute(), 2);
+        if (value.getSecond() != 0) {
+            out.append(':');
+            pad(value.getSecond(), 2);
+        }
+        return this;
+    }
+
+    public CsvWriter nullField() {
+        separate();
+        return this;
+    }
+
+    public void endRecord() {
+        out.append('\n');
+        firstField = true;
+    }
+
+    private void separate() {
+        if (!firstField) {
+            out.append(',');
+        }
+        firstField = false;
+    }
+
+    private StringBuilder pad(int value, int width) {
+        for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+            if (value < limit) {
+                out.append('0');
+            }
+        }
+        return out.append(value);
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
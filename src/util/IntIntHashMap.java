@@ -0,0 +1,142 @@
+package util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Хеш-таблица int → неотрицательный int с открытой адресацией и линейным пробированием,
+ * устроенная как {@link IntObjectHashMap}. Отсутствующий ключ — значение -1.
+ */
+public class IntIntHashMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    // значение + 1; 0 — пустая ячейка
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public IntIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(IntObjectHashMap.tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int key) {
+        int pos = IntObjectHashMap.slot(key, mask);
+        int value;
+        while ((value = values[pos]) != 0) {
+            if (keys[pos] == key) return value - 1;
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) >= 0;
+    }
+
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("IntIntHashMap хранит только неотрицательные значения: " + value);
+        }
+        int pos = IntObjectHashMap.slot(key, mask);
+        int current;
+        while ((current = values[pos]) != 0) {
+            if (keys[pos] == key) {
+                values[pos] = value + 1;
+                return current - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        values[pos] = value + 1;
+        if (++size > resizeThreshold) {
+            rehash(values.length * 2);
+        }
+        return -1;
+    }
+
+    public int remove(int key) {
+        int pos = IntObjectHashMap.slot(key, mask);
+        int current;
+        while ((current = values[pos]) != 0) {
+            if (keys[pos] == key) {
+                size--;
+                shiftKeys(pos);
+                return current - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    public void forEachKey(IntConsumer action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != 0) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    private void shiftKeys(int pos) {
+        int last;
+        while (true) {
+            last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if (values[pos] == 0) {
+                    values[last] = 0;
+                    return;
+                }
+                int slot = IntObjectHashMap.slot(keys[pos], mask);
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) break;
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != 0) {
+                int pos = IntObjectHashMap.slot(oldKeys[i], mask);
+                while (values[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = oldKeys[i];
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
@@ -19,7 +19,7 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class HttpTaskManagerTasksTest {
 
@@ -105,5 +105,88 @@ public class HttpTaskManagerTasksTest {
 
         assertEquals(406, response.statusCode(), "При пересечении задач должен вернуться код 406");
     }
-}
 
+    @Test
+    void shouldSerializeLazyDescription() {
+        Task task = new Task("Lazy", null, Status.NEW);
+        task.setLazyDescription(ref -> "Описание " + ref, 7);
+
+        Task restored = gson.fromJson(gson.toJson(task), Task.class);
+
+        assertEquals("Описание 7", restored.getDescription());
+        assertEquals("Lazy", restored.getName());
+    }
+
+    @Test
+    void shouldReuseCachedJsonUntilTaskChanges() throws IOException, InterruptedException {
+        Task task = new Task("T1", "D1", Status.NEW);
+        task.setDuration(Duration.ofMinutes(30));
+        task.setStartTime(LocalDateTime.of(2025, 9, 27, 12, 0));
+        int id = manager.addTask(task);
+        manager.addTask(new Task("T2", "D2", Status.DONE));
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).GET().build();
+        HttpResponse<String> first = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(gson.toJson(manager.getTasks()), first.body());
+
+        Task changed = manager.getTask(id).copy();
+        changed.setName("T1 renamed");
+        manager.updateTask(changed);
+
+        HttpResponse<String> second = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(manager.getTasks()), second.body());
+        assertTrue(second.body().contains("T1 renamed"));
+        HttpResponse<String> history = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/history")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(manager.getHistory()), history.body());
+    }
+
+    @Test
+    void shouldStreamLargeListInChunks() throws IOException, InterruptedException {
+        for (int i = 0; i < 5_000; i++) {
+            manager.addTask(new Task("Task " + i, "Описание " + i, Status.values()[i % 3]));
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null));
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty());
+        assertEquals(gson.toJson(manager.getTasks()), response.body());
+    }
+
+    @Test
+    void shouldPageSortAndProjectTasks() throws IOException, InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            manager.addTask(new Task("T" + i, "D" + i, i % 2 == 0 ? Status.DONE : Status.NEW));
+        }
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> first = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?sort=status&limit=2&fields=id,status")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, first.statusCode());
+        assertEquals("[{\"id\":2,\"status\":\"NEW\"},{\"id\":4,\"status\":\"NEW\"}]", first.body());
+        String cursor = first.headers().firstValue("X-Next-Cursor").orElseThrow();
+
+        HttpResponse<String> second = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?sort=status&limit=2&cursor=" + cursor)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Task[] page = gson.fromJson(second.body(), Task[].class);
+        assertEquals(List.of(1, 3), List.of(page[0].getId(), page[1].getId()));
+        assertEquals("T0", page[0].getName());
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?sort=name")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+        HttpResponse<String> foreignCursor = client.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/tasks?sort=status&limit=2&cursor=AAAA")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, foreignCursor.statusCode());
+    }
+}
@@ -0,0 +1,76 @@
+package http;
+
+import com.google.gson.Gson;
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerArchiveTest {
+
+    private TaskManager manager;
+    private HttpTaskServer server;
+    private Gson gson = HttpTaskServer.getGson();
+    private HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        server = new HttpTaskServer(manager);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void shouldArchiveQueryAndRestore() throws IOException, InterruptedException {
+        Task done = new Task("T1", "D", Status.DONE);
+        done.setDuration(Duration.ofMinutes(30));
+        done.setStartTime(LocalDateTime.of(2025, 9, 27, 12, 0));
+        int id = manager.addTask(done);
+        manager.addTask(new Task("T2", "D", Status.NEW));
+
+        HttpResponse<String> archived = send("POST", "/archive?before=2025-09-28T00:00");
+        assertEquals(200, archived.statusCode());
+        assertEquals("{\"archived\":1}", archived.body());
+        assertEquals(1, manager.getTasks().size());
+
+        HttpResponse<String> list = send("GET", "/archive");
+        assertEquals(200, list.statusCode());
+        assertEquals(1, gson.fromJson(list.body(), Task[].class).length);
+        assertEquals(200, send("GET", "/archive?id=" + id).statusCode());
+
+        HttpResponse<String> restored = send("POST", "/archive/restore?id=" + id);
+        assertEquals(200, restored.statusCode());
+        assertEquals(id, gson.fromJson(restored.body(), Task[].class)[0].getId());
+        assertNotNull(manager.getTask(id));
+        assertEquals(404, send("GET", "/archive?id=" + id).statusCode());
+        assertEquals(404, send("POST", "/archive/restore?id=" + id).statusCode());
+    }
+
+    @Test
+    void shouldRejectInvalidCutoff() throws IOException, InterruptedException {
+        assertEquals(400, send("POST", "/archive?before=yesterday").statusCode());
+    }
+}
@@ -0,0 +1,99 @@
+package http;
+
+import manager.ConcurrentTaskManager;
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerExecutorTest {
+
+    private static final int CLIENTS = 4;
+
+    private HttpTaskServer server;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Чтение списка задач ждёт, пока столько же запросов не окажутся внутри менеджера одновременно:
+     * с одним потоком-диспетчером это невозможно.
+     */
+    private static class BarrierTaskManager extends InMemoryTaskManager {
+        private final CyclicBarrier barrier = new CyclicBarrier(CLIENTS);
+
+        BarrierTaskManager() {
+            super(new InMemoryHistoryManager());
+        }
+
+        @Override
+        public List<Task> getTasks() {
+            try {
+                barrier.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                throw new IllegalStateException("Запросы не выполнялись параллельно", e);
+            }
+            return super.getTasks();
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (server != null) server.stop();
+    }
+
+    private List<Integer> sendConcurrently() {
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/tasks")).GET().build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+        return responses.stream().map(f -> f.join().statusCode()).toList();
+    }
+
+    @Test
+    void fixedPoolServesClientsConcurrently() throws IOException {
+        server = new HttpTaskServer(new BarrierTaskManager(), HttpTaskServer.ExecutorMode.FIXED, CLIENTS, 64);
+        server.start();
+
+        assertInstanceOf(ConcurrentTaskManager.class, server.getManager());
+        assertEquals(List.of(200, 200, 200, 200), sendConcurrently());
+    }
+
+    @Test
+    void workStealingPoolServesClientsConcurrently() throws IOException {
+        server = new HttpTaskServer(new BarrierTaskManager(), HttpTaskServer.ExecutorMode.WORK_STEALING, CLIENTS, 0);
+        server.start();
+
+        assertEquals(List.of(200, 200, 200, 200), sendConcurrently());
+    }
+
+    @Test
+    void virtualThreadsNeedJdk21() throws IOException {
+        Properties config = new Properties();
+        config.setProperty(HttpTaskServer.EXECUTOR, "virtual");
+        if (Runtime.version().feature() < 21) {
+            assertThrows(IllegalStateException.class,
+                    () -> HttpTaskServer.fromConfig(new BarrierTaskManager(), config));
+            return;
+        }
+        server = HttpTaskServer.fromConfig(new BarrierTaskManager(), config);
+        server.start();
+        assertEquals(List.of(200, 200, 200, 200), sendConcurrently());
+    }
+}
@@ -57,5 +57,48 @@ public class HttpTaskServerPrioritizedTest {
         assertEquals(2, tasks.length);
         assertEquals(t2.getId(), tasks[0].getId());
     }
-}
 
+    @Test
+    void shouldReturnTimeWindowPageWithCursor() throws IOException, InterruptedException {
+        LocalDateTime day = LocalDateTime.of(2025, 9, 27, 0, 0);
+        for (int hour = 0; hour < 6; hour++) {
+            Task task = new Task("T" + hour, "D", Status.NEW);
+            task.setDuration(Duration.ofMinutes(15));
+            task.setStartTime(day.plusHours(hour));
+            manager.addTask(task);
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2025-09-27T01:00&to=2025-09-27T05:00&limit=2"))
+                .GET().build();
+        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, resp.statusCode());
+        Task[] page = gson.fromJson(resp.body(), Task[].class);
+        assertEquals(2, page.length);
+        assertEquals(day.plusHours(1), page[0].getStartTime());
+
+        String cursor = resp.headers().firstValue("X-Next-Cursor").orElseThrow();
+        req = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?to=2025-09-27T05:00&limit=2&cursor=" + cursor))
+                .GET().build();
+        resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+
+        page = gson.fromJson(resp.body(), Task[].class);
+        assertEquals(2, page.length);
+        assertEquals(day.plusHours(3), page[0].getStartTime());
+        assertEquals(day.plusHours(4), page[1].getStartTime());
+
+        req = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?limit=2&cursor=2025-09-27T01:00/1"))
+                .GET().build();
+        assertEquals(400, client.send(req, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        String forged = new PageCursor(Long.MAX_VALUE / 2, 1).encode();
+        req = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/prioritized?limit=2&cursor=" + forged))
+                .GET().build();
+        assertEquals(400, client.send(req, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
@@ -0,0 +1,65 @@
+package http;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerSearchTest {
+
+    private TaskManager manager;
+    private HttpTaskServer server;
+    private Gson gson = HttpTaskServer.getGson();
+    private HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        server = new HttpTaskServer(manager);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> get(String query) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080/search" + query)).GET().build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void shouldReturnIdsAndSnippets() throws IOException, InterruptedException {
+        int id = manager.addTask(new Task("Release notes", "Write the release notes for 2.0", Status.NEW));
+        manager.addTask(new Task("Retro", "Book a room", Status.NEW));
+
+        HttpResponse<String> response = get("?q=" + URLEncoder.encode("release no", StandardCharsets.UTF_8));
+        assertEquals(200, response.statusCode());
+        JsonArray hits = gson.fromJson(response.body(), JsonArray.class);
+        assertEquals(1, hits.size());
+        JsonObject hit = hits.get(0).getAsJsonObject();
+        assertEquals(id, hit.get("id").getAsInt());
+        assertEquals("TASK", hit.get("type").getAsString());
+        assertEquals("Write the release notes for 2.0", hit.get("snippet").getAsString());
+    }
+
+    @Test
+    void shouldRejectMissingQueryOrLimit() throws IOException, InterruptedException {
+        assertEquals(400, get("").statusCode());
+        assertEquals(400, get("?q=release&limit=0").statusCode());
+    }
+}
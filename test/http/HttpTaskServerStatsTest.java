@@ -0,0 +1,70 @@
+package http;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.*;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTaskServerStatsTest {
+
+    private TaskManager manager;
+    private HttpTaskServer server;
+    private Gson gson = HttpTaskServer.getGson();
+    private HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        server = new HttpTaskServer(manager);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path)).GET().build();
+        return client.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void shouldReturnCountsAndBusiestDay() throws IOException, InterruptedException {
+        Task night = new Task("T1", "D", Status.IN_PROGRESS);
+        night.setStartTime(LocalDateTime.of(2025, 9, 27, 23, 0));
+        night.setDuration(Duration.ofMinutes(90));
+        manager.addTask(night);
+        manager.addTask(new Task("T2", "D", Status.NEW));
+
+        HttpResponse<String> response = get("/stats");
+        assertEquals(200, response.statusCode());
+        JsonObject stats = gson.fromJson(response.body(), JsonObject.class);
+        assertEquals(1, stats.getAsJsonObject("counts").getAsJsonObject("TASK").get("NEW").getAsInt());
+        assertEquals(90, stats.getAsJsonObject("minutes").getAsJsonObject("TASK").get("IN_PROGRESS").getAsLong());
+        assertEquals("2025-09-27", stats.get("busiestDay").getAsString());
+        assertEquals(60, stats.get("busiestDayMinutes").getAsLong());
+
+        HttpResponse<String> days = get("/stats/days?from=2025-09-27&to=2025-09-29");
+        assertEquals(200, days.statusCode());
+        assertEquals("{\"2025-09-27\":60,\"2025-09-28\":30}", days.body());
+    }
+
+    @Test
+    void shouldRejectInvalidDays() throws IOException, InterruptedException {
+        assertEquals(400, get("/stats/days?from=2025-09-27").statusCode());
+        assertEquals(400, get("/stats/days?from=today&to=2025-09-29").statusCode());
+    }
+}
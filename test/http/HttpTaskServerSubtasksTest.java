@@ -86,5 +86,38 @@ public class HttpTaskServerSubtasksTest {
         assertEquals("Sub1", subtasks[0].getName(), "Некорректное имя сабтаски");
     }
 
-}
 
+    @Test
+    void shouldFilterSubtasksByStatusEpicAndTime() throws IOException, InterruptedException {
+        int otherEpic = manager.addEpic(new Epic("Epic2", "Desc", Status.NEW));
+        int[] expected = new int[2];
+        for (int i = 0; i < 6; i++) {
+            Subtask subtask = new Subtask("Sub" + i, "D", i % 2 == 0 ? Status.IN_PROGRESS : Status.NEW,
+                    i < 4 ? epic.getId() : otherEpic);
+            subtask.setStartTime(LocalDateTime.of(2025, 9, 27, 8 + i, 0));
+            subtask.setDuration(Duration.ofMinutes(30));
+            int id = manager.addSubtask(subtask);
+            if (i == 0 || i == 2) expected[i / 2] = id;
+        }
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> byEpic = client.send(HttpRequest.newBuilder().uri(URI.create(
+                "http://localhost:8080/subtasks?status=IN_PROGRESS&epic=" + epic.getId())).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Subtask[] found = gson.fromJson(byEpic.body(), Subtask[].class);
+        assertEquals(2, found.length);
+        assertEquals(expected[0], found[0].getId());
+        assertEquals(expected[1], found[1].getId());
+
+        HttpResponse<String> byTime = client.send(HttpRequest.newBuilder().uri(URI.create(
+                "http://localhost:8080/subtasks?from=2025-09-27T09:00&to=2025-09-27T12:00&sort=startTime")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        found = gson.fromJson(byTime.body(), Subtask[].class);
+        assertEquals(3, found.length);
+        assertEquals(LocalDateTime.of(2025, 9, 27, 9, 0), found[0].getStartTime());
+
+        HttpResponse<String> invalid = client.send(HttpRequest.newBuilder().uri(URI.create(
+                "http://localhost:8080/subtasks?status=LATE")).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, invalid.statusCode());
+    }
+}
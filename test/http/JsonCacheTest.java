@@ -0,0 +1,66 @@
+package http;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonCacheTest {
+
+    private final AtomicInteger encoded = new AtomicInteger();
+    private final Function<Task, byte[]> encoder = task -> {
+        encoded.incrementAndGet();
+        return task.getName().getBytes(StandardCharsets.UTF_8);
+    };
+
+    private static Task frozen(int id, String name) {
+        Task task = new Task(name, "Desc", Status.NEW);
+        task.setId(id);
+        task.freeze();
+        return task;
+    }
+
+    @Test
+    void reusesJsonWhileTaskObjectIsTheSame() {
+        JsonCache cache = new JsonCache(10);
+        Task task = frozen(1, "T1");
+
+        byte[] first = cache.encode(task, encoder);
+        assertSame(first, cache.encode(task, encoder));
+        assertEquals(1, encoded.get());
+
+        byte[] replaced = cache.encode(frozen(1, "T1 renamed"), encoder);
+        assertEquals("T1 renamed", new String(replaced, StandardCharsets.UTF_8));
+        assertEquals(2, encoded.get());
+    }
+
+    @Test
+    void doesNotCacheMutableTasks() {
+        JsonCache cache = new JsonCache(10);
+        Task task = new Task("T1", "Desc", Status.NEW);
+
+        cache.encode(task, encoder);
+        cache.encode(task, encoder);
+        assertEquals(2, encoded.get());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyReadEntries() {
+        JsonCache cache = new JsonCache(2);
+        Task first = frozen(1, "T1");
+        cache.encode(first, encoder);
+        cache.encode(frozen(2, "T2"), encoder);
+        cache.encode(first, encoder);
+        cache.encode(frozen(3, "T3"), encoder);
+
+        assertEquals(2, cache.size());
+        cache.encode(first, encoder);
+        assertEquals(3, encoded.get());
+    }
+}
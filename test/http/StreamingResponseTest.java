@@ -0,0 +1,74 @@
+package http;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingResponseTest {
+
+    private final Gson gson = HttpTaskServer.getGson();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private TaskManager manager;
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        manager = new InMemoryTaskManager(new InMemoryHistoryManager());
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/history", new HistoryHandler(manager, gson) {
+            @Override
+            protected byte[] encode(Task task) {
+                if (task.getName().equals("broken")) {
+                    throw new IllegalStateException("не кодируется");
+                }
+                return super.encode(task);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private HttpResponse<String> history() throws IOException, InterruptedException {
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + "/history");
+        return client.send(HttpRequest.newBuilder().uri(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void failureOnFirstTaskBecomesServerError() throws IOException, InterruptedException {
+        manager.getTask(manager.addTask(new Task("broken", "D", Status.NEW)));
+
+        assertEquals(500, history().statusCode());
+    }
+
+    @Test
+    void failureMidStreamCutsResponseWithoutSecondStatus() throws IOException, InterruptedException {
+        manager.getTask(manager.addTask(new Task("fine", "D", Status.NEW)));
+        manager.getTask(manager.addTask(new Task("broken", "D", Status.NEW)));
+
+        HttpResponse<String> response = history();
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().startsWith("[{"));
+        assertFalse(response.body().endsWith("]"));
+
+        manager.clearAllTasks();
+        assertEquals("[]", history().body());
+    }
+}
@@ -0,0 +1,149 @@
+package manager;
+
+import model.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 2_000;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Override
+    protected ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager(new InMemoryTaskManager(new InMemoryHistoryManager()));
+    }
+
+    @Test
+    void concurrentWritesKeepNoOverlapInvariantAndEpicAggregates() throws Exception {
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            epicIds.add(manager.addEpic(new Epic("Epic " + i, "d", Status.NEW)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    runRandomOperation(random, epicIds);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertNoOverlaps(manager.getPrioritizedTasks());
+        assertUniqueIds();
+        for (int epicId : epicIds) {
+            assertEpicAggregates(manager.getEpic(epicId));
+        }
+    }
+
+    private void runRandomOperation(Random random, List<Integer> epicIds) {
+        try {
+            switch (random.nextInt(6)) {
+                case 0 -> {
+                    Task task = new Task("t", "d", Status.NEW);
+                    task.setStartTime(BASE.plusMinutes(15L * random.nextInt(4_000)));
+                    task.setDuration(Duration.ofMinutes(30));
+                    manager.addTask(task);
+                }
+                case 1 -> {
+                    int epicId = epicIds.get(random.nextInt(epicIds.size()));
+                    Subtask subtask = new Subtask("s", "d", randomStatus(random), epicId);
+                    subtask.setStartTime(BASE.plusMinutes(15L * random.nextInt(4_000)));
+                    subtask.setDuration(Duration.ofMinutes(45));
+                    manager.addSubtask(subtask);
+                }
+                case 2 -> {
+                    List<Subtask> subtasks = manager.getSubtasks();
+                    if (subtasks.isEmpty()) return;
+                    Subtask old = subtasks.get(random.nextInt(subtasks.size()));
+                    Subtask updated = new Subtask(old.getName(), old.getDescription(),
+                            randomStatus(random), old.getEpicId());
+                    updated.setId(old.getId());
+                    updated.setStartTime(old.getStartTime());
+                    updated.setDuration(old.getDuration());
+                    manager.updateSubtask(updated);
+                }
+                case 3 -> {
+                    List<Subtask> subtasks = manager.getSubtasks();
+                    if (subtasks.isEmpty()) return;
+                    manager.deleteSubtask(subtasks.get(random.nextInt(subtasks.size())).getId());
+                }
+                case 4 -> {
+                    List<Task> tasks = manager.getTasks();
+                    if (tasks.isEmpty()) return;
+                    manager.deleteTask(tasks.get(random.nextInt(tasks.size())).getId());
+                }
+                default -> {
+                    manager.getPrioritizedTasks();
+                    manager.getEpic(epicIds.get(random.nextInt(epicIds.size())));
+                    manager.getHistory();
+                }
+            }
+        } catch (IllegalStateException ignored) {
+            // пересечение по времени — ожидаемый отказ
+        }
+    }
+
+    private Status randomStatus(Random random) {
+        return Status.values()[random.nextInt(Status.values().length)];
+    }
+
+    private void assertNoOverlaps(List<Task> prioritized) {
+        for (int i = 1; i < prioritized.size(); i++) {
+            Task prev = prioritized.get(i - 1);
+            Task next = prioritized.get(i);
+            assertFalse(prev.getEndTime().isAfter(next.getStartTime()),
+                    "Задачи пересекаются: " + prev + " и " + next);
+        }
+    }
+
+    private void assertUniqueIds() {
+        Set<Integer> ids = new HashSet<>();
+        manager.getTasks().forEach(t -> assertTrue(ids.add(t.getId())));
+        manager.getEpics().forEach(e -> assertTrue(ids.add(e.getId())));
+        manager.getSubtasks().forEach(s -> assertTrue(ids.add(s.getId())));
+    }
+
+    private void assertEpicAggregates(Epic epic) {
+        List<Subtask> subtasks = manager.getEpicSubtasks(epic.getId());
+
+        Status expectedStatus;
+        if (subtasks.stream().allMatch(s -> s.getStatus() == Status.NEW)) {
+            expectedStatus = Status.NEW;
+        } else if (subtasks.stream().allMatch(s -> s.getStatus() == Status.DONE)) {
+            expectedStatus = Status.DONE;
+        } else {
+            expectedStatus = Status.IN_PROGRESS;
+        }
+        assertEquals(expectedStatus, epic.getStatus());
+
+        long minutes = subtasks.stream().mapToLong(s -> s.getDuration().toMinutes()).sum();
+        assertEquals(Duration.ofMinutes(minutes), epic.getDuration());
+
+        LocalDateTime expectedStart = subtasks.stream()
+                .map(Task::getStartTime).min(LocalDateTime::compareTo).orElse(null);
+        LocalDateTime expectedEnd = subtasks.stream()
+                .map(Task::getEndTime).max(LocalDateTime::compareTo).orElse(null);
+        assertEquals(expectedStart, epic.getStartTime());
+        assertEquals(expectedEnd, epic.getEndTime());
+    }
+}
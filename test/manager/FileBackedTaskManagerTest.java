@@ -7,9 +7,16 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,6 +47,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         task.setDuration(Duration.ofDays(60));
         manager.addTask(task);
 
+        manager.flush();
         FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
 
         assertEquals(manager.getTasks().size(), loaded.getTasks().size());
@@ -51,6 +59,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         Task task = new Task("Task 2", "No time", Status.NEW);
         manager.addTask(task);
 
+        manager.flush();
         FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
 
         assertEquals(manager.getTasks().size(), loaded.getTasks().size());
@@ -67,6 +76,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         subtask.setDuration(Duration.ofMinutes(30));
         manager.addSubtask(subtask);
 
+        manager.flush();
         FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
 
         List<Epic> originalEpics = manager.getEpics();
@@ -103,6 +113,20 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertEquals(expectedEpic.getEndTime(), actualEpic.getEndTime());
     }
 
+    @Test
+    void shouldRebuildSearchIndexOnLoad() {
+        manager.addTask(new Task("Купить молоко", "В магазине у дома", Status.NEW));
+        int epicId = manager.addEpic(new Epic("Переезд", "Собрать коробки", Status.NEW));
+        manager.addSubtask(new Subtask("Заказать машину", "Грузовик на субботу", Status.NEW, epicId));
+
+        manager.flush();
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+
+        assertEquals(List.of(epicId), loaded.search("коробк", 10).stream().map(SearchHit::id).toList());
+        assertEquals(1, loaded.search("грузовик суб", 10).size());
+        assertTrue(loaded.search("машина", 10).isEmpty());
+    }
+
     @Test
     void shouldRestorePrioritizedTasks() {
         Task task1 = new Task("Task 1", "Desc 1", Status.NEW);
@@ -117,6 +141,7 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         manager.addTask(task1);
         manager.addTask(task2);
 
+        manager.flush();
         FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
 
         assertEquals(manager.getPrioritizedTasks(), loaded.getPrioritizedTasks());
@@ -132,4 +157,420 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertTrue(loaded.getEpics().isEmpty());
         assertTrue(loaded.getSubtasks().isEmpty());
     }
+
+    @Test
+    void logModeReplaysChangesOnTopOfSnapshot() {
+        FileBackedTaskManager logged = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.LOG);
+        int taskId = logged.addTask(new Task("Task", "Desc", Status.NEW));
+        int removedId = logged.addTask(new Task("Removed", "Desc", Status.NEW));
+        int epicId = logged.addEpic(new Epic("Epic", "Desc", Status.NEW));
+        Subtask subtask = new Subtask("Sub", "Desc", Status.DONE, epicId);
+        subtask.setStartTime(LocalDateTime.parse("2025-09-20T10:00"));
+        subtask.setDuration(Duration.ofMinutes(30));
+        logged.addSubtask(subtask);
+
+        Task renamed = new Task("Renamed", "Desc", Status.IN_PROGRESS);
+        renamed.setId(taskId);
+        logged.updateTask(renamed);
+        logged.deleteTask(removedId);
+        logged.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.LOG);
+
+        assertEquals(1, loaded.getTasks().size());
+        assertEquals("Renamed", loaded.getTask(taskId).getName());
+        assertEquals(Status.IN_PROGRESS, loaded.getTask(taskId).getStatus());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(LocalDateTime.parse("2025-09-20T10:30"), loaded.getEpic(epicId).getEndTime());
+        assertEquals(1, loaded.getPrioritizedTasks().size());
+
+        int nextId = loaded.addTask(new Task("Next", "Desc", Status.NEW));
+        assertTrue(nextId > removedId);
+        loaded.close();
+    }
+
+    @Test
+    void logModeIgnoresTornLastRecord() throws IOException {
+        FileBackedTaskManager logged = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.LOG);
+        logged.addTask(new Task("Task", "Desc", Status.NEW));
+        logged.close();
+        Files.writeString(tempFile.toPath().resolveSibling(tempFile.getName() + ".log"), "U,2,TA",
+                StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.LOG);
+
+        assertEquals(1, loaded.getTasks().size());
+        loaded.close();
+    }
+
+    @Test
+    void snapshotModeFoldsLeftoverLogIntoSnapshot() {
+        FileBackedTaskManager logged = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.LOG);
+        logged.addTask(new Task("Task", "Desc", Status.NEW));
+        logged.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+
+        assertEquals(1, loaded.getTasks().size());
+        assertFalse(Files.exists(tempFile.toPath().resolveSibling(tempFile.getName() + ".log")));
+        assertEquals(1, FileBackedTaskManager.loadFromFile(tempFile).getTasks().size());
+    }
+
+    @Test
+    void backgroundSnapshotCompactsLogAndKeepsLaterWrites() throws Exception {
+        FileBackedTaskManager logged = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.LOG, SnapshotPolicy.DISABLED);
+        int epicId = logged.addEpic(new Epic("Epic", "Desc", Status.NEW));
+        int subtaskId = logged.addSubtask(new Subtask("Sub", "Desc", Status.DONE, epicId));
+        int taskId = logged.addTask(new Task("Task", "Desc", Status.NEW));
+
+        logged.triggerSnapshot().get(10, TimeUnit.SECONDS);
+        logged.deleteTask(taskId);
+        logged.close();
+
+        assertFalse(Files.exists(tempFile.toPath().resolveSibling(tempFile.getName() + ".log.compacting")));
+        assertEquals(1, Files.readAllLines(tempFile.toPath().resolveSibling(tempFile.getName() + ".log")).size());
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.LOG);
+        assertTrue(loaded.getTasks().isEmpty());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(List.of(subtaskId), loaded.getEpic(epicId).getSubtaskIds());
+        loaded.close();
+    }
+
+    @Test
+    void recordCountPolicyTriggersSnapshot() throws Exception {
+        FileBackedTaskManager logged = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.LOG, SnapshotPolicy.everyRecords(3));
+        for (int i = 0; i < 3; i++) {
+            logged.addTask(new Task("Task " + i, "Desc", Status.NEW));
+        }
+        logged.close();
+
+        assertFalse(Files.exists(tempFile.toPath().resolveSibling(tempFile.getName() + ".log")));
+        assertEquals(3, FileBackedTaskManager.loadFromFile(tempFile).getTasks().size());
+    }
+
+    @Test
+    void failingRotationCallbackDoesNotStopWriter() throws Exception {
+        Path log = tempFile.toPath().resolveSibling(tempFile.getName() + ".log");
+        PersistencePipeline pipeline = new PersistencePipeline(tempFile.toPath(), log,
+                tempFile.toPath().resolveSibling(tempFile.getName() + ".log.compacting"), DurabilityPolicy.SYNC,
+                SnapshotPolicy.everyRecords(1), () -> {
+                    throw new IllegalStateException("сбой снимка");
+                });
+        pipeline.appendRecord("first").get(10, TimeUnit.SECONDS);
+        pipeline.appendRecord("second").get(10, TimeUnit.SECONDS);
+        pipeline.close();
+
+        assertEquals(List.of("first", "second"), Files.readAllLines(log));
+        assertDoesNotThrow(() -> pipeline.flush().join());
+    }
+
+    @Test
+    void leftoverCompactingSegmentIsReplayedIdempotently() throws Exception {
+        FileBackedTaskManager logged = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.LOG);
+        int epicId = logged.addEpic(new Epic("Epic", "Desc", Status.NEW));
+        logged.addSubtask(new Subtask("Sub", "Desc", Status.NEW, epicId));
+        logged.deleteEpic(epicId);
+        logged.addTask(new Task("Task", "Desc", Status.NEW));
+        logged.flush();
+        Path log = tempFile.toPath().resolveSibling(tempFile.getName() + ".log");
+        List<String> records = Files.readAllLines(log);
+        logged.triggerSnapshot().get(10, TimeUnit.SECONDS);
+        logged.close();
+
+        // сбой между записью снимка и удалением свёрнутого журнала
+        Files.write(tempFile.toPath().resolveSibling(tempFile.getName() + ".log.compacting"), records);
+        assertFalse(Files.exists(log));
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.LOG);
+        assertTrue(loaded.getEpics().isEmpty());
+        assertTrue(loaded.getSubtasks().isEmpty());
+        assertEquals(1, loaded.getTasks().size());
+        loaded.close();
+    }
+
+    @Test
+    void groupCommitAcknowledgesConcurrentWritersAfterFsync() throws Exception {
+        FileBackedTaskManager logged = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.LOG, SnapshotPolicy.DISABLED,
+                DurabilityPolicy.group(Duration.ofMillis(5)));
+        TaskManager concurrent = Managers.getConcurrent(logged);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    concurrent.addTask(new Task("Task", "Desc", Status.NEW));
+                    concurrent.lastCommit().join();
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(200, Files.readAllLines(tempFile.toPath().resolveSibling(tempFile.getName() + ".log")).size());
+        logged.close();
+        assertEquals(200, FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.LOG).getTasks().size());
+    }
+
+    @Test
+    void snapshotModeCoalescesQueuedSnapshots() {
+        FileBackedTaskManager buffered = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.SNAPSHOT, SnapshotPolicy.DISABLED, DurabilityPolicy.NONE);
+        for (int i = 0; i < 100; i++) {
+            buffered.addTask(new Task("Task " + i, "Desc", Status.NEW));
+        }
+        buffered.lastCommit().join();
+
+        assertEquals(100, FileBackedTaskManager.loadFromFile(tempFile).getTasks().size());
+        buffered.close();
+    }
+
+    @Test
+    void binarySnapshotRoundTripsAndIsDetectedOnLoad() throws IOException {
+        FileBackedTaskManager binary = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.SNAPSHOT, SnapshotPolicy.DISABLED, DurabilityPolicy.SYNC,
+                FileBackedTaskManager.SnapshotFormat.BINARY);
+        Task task = new Task("Задача", null, Status.IN_PROGRESS);
+        task.setStartTime(LocalDateTime.parse("1969-12-31T23:00"));
+        task.setDuration(Duration.ofMinutes(45));
+        int taskId = binary.addTask(task);
+        int untimedId = binary.addTask(new Task("Без времени", "Описание", Status.NEW));
+        int epicId = binary.addEpic(new Epic("Epic", "Desc", Status.NEW));
+        Subtask subtask = new Subtask("Sub", "Desc", Status.DONE, epicId);
+        subtask.setStartTime(LocalDateTime.parse("2025-09-20T10:00"));
+        subtask.setDuration(Duration.ofMinutes(30));
+        int subtaskId = binary.addSubtask(subtask);
+        binary.close();
+
+        assertEquals('J', Files.readAllBytes(tempFile.toPath())[0]);
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+
+        assertEquals(binary.getTask(taskId), loaded.getTask(taskId));
+        assertNull(loaded.getTask(taskId).getDescription());
+        assertEquals(LocalDateTime.parse("1969-12-31T23:45"), loaded.getTask(taskId).getEndTime());
+        assertNull(loaded.getTask(untimedId).getStartTime());
+        assertEquals(epicId, loaded.getSubtask(subtaskId).getEpicId());
+        assertEquals(Status.DONE, loaded.getEpic(epicId).getStatus());
+        assertEquals(LocalDateTime.parse("2025-09-20T10:30"), loaded.getEpic(epicId).getEndTime());
+        assertEquals(binary.getPrioritizedTasks(), loaded.getPrioritizedTasks());
+    }
+
+    @Test
+    void lazyDescriptionsAreReadFromBinarySnapshotOnDemand() {
+        FileBackedTaskManager binary = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager(),
+                FileBackedTaskManager.PersistenceMode.SNAPSHOT, SnapshotPolicy.DISABLED, DurabilityPolicy.SYNC,
+                FileBackedTaskManager.SnapshotFormat.BINARY);
+        String longDescription = "Длинное описание, которое не нужно держать в памяти: ".repeat(4);
+        int longId = binary.addTask(new Task("Длинная", longDescription, Status.NEW));
+        int shortId = binary.addTask(new Task("Короткая", "Коротко", Status.NEW));
+        int epicId = binary.addEpic(new Epic("Epic", longDescription + "эпика", Status.NEW));
+        binary.close();
+
+        FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.SNAPSHOT, SnapshotPolicy.DISABLED, DurabilityPolicy.SYNC,
+                FileBackedTaskManager.SnapshotFormat.BINARY, FileBackedTaskManager.DescriptionLoading.LAZY);
+        assertTrue(lazy.getTask(longId).hasLazyDescription());
+        assertFalse(lazy.getTask(shortId).hasLazyDescription());
+        assertEquals(longDescription, lazy.getTask(longId).getDescription());
+        assertEquals("Коротко", lazy.getTask(shortId).getDescription());
+        assertEquals(longDescription + "эпика", lazy.getEpic(epicId).getDescription());
+        assertEquals(List.of(longId, epicId), lazy.search("держать", 10).stream().map(SearchHit::id).sorted().toList());
+
+        Task before = lazy.getTask(longId);
+        Task updated = new Task("Длинная", "Новое описание", Status.NEW);
+        updated.setId(longId);
+        lazy.updateTask(updated);
+        lazy.addTask(new Task("Ещё", "Desc", Status.NEW));
+        lazy.close();
+        // снимок заменён: описания переведены на новый файл, а изменённое осталось в куче
+        assertEquals(longDescription, before.getDescription());
+        assertEquals(longDescription + "эпика", lazy.getEpic(epicId).getDescription());
+
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals("Новое описание", reloaded.getTask(longId).getDescription());
+        assertEquals(longDescription + "эпика", reloaded.getEpic(epicId).getDescription());
+    }
+
+    @Test
+    void archiveSurvivesReloadAndKeepsIdsUnique() {
+        Task done = new Task("Готово", "Описание", Status.DONE);
+        int doneId = manager.addTask(done);
+        int openId = manager.addTask(new Task("Открыта", "Desc", Status.NEW));
+        assertEquals(1, manager.archiveDone(null));
+        manager.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(List.of(openId), loaded.getTasks().stream().map(Task::getId).toList());
+        assertEquals("Описание", loaded.getArchived(doneId).getDescription());
+        loaded.deleteTask(openId);
+        assertTrue(loaded.addTask(new Task("Новая", "Desc", Status.NEW)) > Math.max(doneId, openId));
+
+        loaded.restoreArchived(doneId);
+        loaded.close();
+        FileBackedTaskManager reloaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(Status.DONE, reloaded.getTask(doneId).getStatus());
+        assertTrue(reloaded.getArchived().isEmpty());
+    }
+
+    @Test
+    void taskLeftInBothStoresAfterCrashStaysActive() throws IOException {
+        int doneId = manager.addTask(new Task("Готово", "Desc", Status.DONE));
+        int epicId = manager.addEpic(new Epic("Epic", "Desc", Status.NEW));
+        int subtaskId = manager.addSubtask(new Subtask("Sub", "Desc", Status.DONE, epicId));
+        manager.flush();
+        byte[] snapshot = Files.readAllBytes(tempFile.toPath());
+        int laterId = manager.addTask(new Task("Позже", "Desc", Status.DONE));
+        assertEquals(3, manager.archiveDone(null));
+        manager.close();
+        Files.write(tempFile.toPath(), snapshot); // удаление из снимка не дошло до диска
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertNotNull(loaded.getTask(doneId));
+        assertEquals(List.of(subtaskId), loaded.getEpic(epicId).getSubtaskIds());
+        assertEquals(List.of(laterId), loaded.getArchived().stream().map(Task::getId).toList());
+        loaded.close();
+        assertEquals(List.of(laterId), FileBackedTaskManager.loadFromFile(tempFile).getArchived().stream()
+                .map(Task::getId).toList());
+    }
+
+    @Test
+    void csvSnapshotCanBeMigratedToBinary() throws IOException {
+        manager.addTask(new Task("Task", "Desc", Status.NEW));
+        manager.flush();
+
+        FileBackedTaskManager migrated = FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.SNAPSHOT, SnapshotPolicy.DISABLED, DurabilityPolicy.SYNC,
+                FileBackedTaskManager.SnapshotFormat.BINARY);
+        migrated.addTask(new Task("Second", "Desc", Status.NEW));
+        migrated.close();
+
+        assertEquals('J', Files.readAllBytes(tempFile.toPath())[0]);
+        assertEquals(2, FileBackedTaskManager.loadFromFile(tempFile).getTasks().size());
+    }
+
+    @Test
+    void namesWithCommasQuotesAndNewlinesSurviveSnapshotAndLog() {
+        Task task = new Task("Купить молоко, хлеб", "Сказать \"спасибо\"\nи уйти", Status.NEW);
+        int snapshotId = manager.addTask(task);
+        manager.flush();
+        assertEquals(task.getDescription(), FileBackedTaskManager.loadFromFile(tempFile).getTask(snapshotId)
+                .getDescription());
+
+        FileBackedTaskManager logged = FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.LOG);
+        int epicId = logged.addEpic(new Epic("Эпик,\r\nс переносом", "", Status.NEW));
+        logged.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile,
+                FileBackedTaskManager.PersistenceMode.LOG);
+        assertEquals("Купить молоко, хлеб", loaded.getTask(snapshotId).getName());
+        assertEquals("Эпик,\r\nс переносом", loaded.getEpic(epicId).getName());
+        assertEquals("", loaded.getEpic(epicId).getDescription());
+        loaded.close();
+    }
+
+    @Test
+    void parallelLoadMatchesSequentialLoad() {
+        for (int e = 0; e < 20; e++) {
+            int epicId = manager.addEpic(new Epic("Epic " + e, "Desc,\n\"quoted\"", Status.NEW));
+            for (int s = 0; s < 5; s++) {
+                Subtask subtask = new Subtask("Sub " + s, "Line\nbreak", Status.values()[s % 3], epicId);
+                subtask.setStartTime(LocalDateTime.parse("2025-01-01T00:00").plusHours(e * 10L + s));
+                subtask.setDuration(Duration.ofMinutes(30));
+                manager.addSubtask(subtask);
+            }
+            manager.addTask(new Task("Task \"" + e, null, Status.DONE));
+        }
+        manager.flush();
+
+        FileBackedTaskManager sequential = FileBackedTaskManager.loadFromFile(tempFile);
+        FileBackedTaskManager parallel = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager());
+        parallel.readSnapshotParallel(64);
+
+        assertEquals(sequential.getTasks().size(), parallel.getTasks().size());
+        assertEquals(sequential.getSubtasks().size(), parallel.getSubtasks().size());
+        for (Epic epic : sequential.getEpics()) {
+            Epic loaded = parallel.getEpic(epic.getId());
+            assertEquals(epic.getDescription(), loaded.getDescription());
+            assertEquals(epic.getSubtaskIds(), loaded.getSubtaskIds());
+            assertEquals(epic.getStatus(), loaded.getStatus());
+            assertEquals(epic.getEndTime(), loaded.getEndTime());
+        }
+        for (Task task : sequential.getTasks()) {
+            assertEquals(task.getName(), parallel.getTask(task.getId()).getName());
+        }
+        assertEquals(sequential.getPrioritizedTasks(), parallel.getPrioritizedTasks());
+    }
+
+    @Test
+    void parallelLoadLinksSubtasksListedBeforeTheirEpic() throws IOException {
+        Files.writeString(tempFile.toPath(), String.join("\n",
+                "id,type,name,status,description,duration,startTime,endTime,epic",
+                "2,SUBTASK,Sub,DONE,Desc,30,2025-09-20T10:00,2025-09-20T10:30,1",
+                "3,TASK,Task,NEW,Desc,,,,",
+                "1,EPIC,Epic,NEW,Desc,0,,,",
+                ""));
+
+        FileBackedTaskManager loaded = new FileBackedTaskManager(tempFile.toPath(), new InMemoryHistoryManager());
+        loaded.readSnapshotParallel(16);
+
+        assertEquals(List.of(2), loaded.getEpic(1).getSubtaskIds());
+        assertEquals(Status.DONE, loaded.getEpic(1).getStatus());
+        assertEquals(1, loaded.getPrioritizedTasks().size());
+        assertEquals(4, loaded.addTask(new Task("Next", "Desc", Status.NEW)));
+    }
+
+    @Test
+    void loadBuildsScheduleThatAcceptsFurtherChanges() {
+        for (int i = 0; i < 50; i++) {
+            Task task = new Task("Task " + i, "Desc", Status.NEW);
+            task.setStartTime(LocalDateTime.parse("2025-01-01T00:00").plusHours(49 - i));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+        }
+        manager.flush();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(tempFile);
+        assertEquals(manager.getPrioritizedTasks(), loaded.getPrioritizedTasks());
+
+        Task overlapping = new Task("Overlap", "Desc", Status.NEW);
+        overlapping.setStartTime(LocalDateTime.parse("2025-01-01T10:15"));
+        overlapping.setDuration(Duration.ofMinutes(30));
+        assertThrows(IllegalStateException.class, () -> loaded.addTask(overlapping));
+
+        Task first = loaded.getPrioritizedTasks().get(0);
+        loaded.deleteTask(first.getId());
+        assertEquals(49, loaded.getPrioritizedTasks().size());
+        assertEquals(LocalDateTime.parse("2025-01-01T00:00"),
+                loaded.findFreeSlot(LocalDateTime.parse("2025-01-01T00:00"), Duration.ofMinutes(60)));
+        assertEquals(LocalDateTime.parse("2025-01-01T01:30"),
+                loaded.findFreeSlot(LocalDateTime.parse("2025-01-01T01:00"), Duration.ofMinutes(30)));
+    }
+
+    @Test
+    void loadRejectsSnapshotWithOverlappingTasks() throws IOException {
+        Files.writeString(tempFile.toPath(), String.join("\n",
+                "id,type,name,status,description,duration,startTime,endTime,epic",
+                "1,TASK,A,NEW,Desc,60,2025-09-20T10:00,,",
+                "2,EPIC,Epic,NEW,Desc,0,,,",
+                "3,SUBTASK,B,NEW,Desc,30,2025-09-20T10:30,,2",
+                ""));
+
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(tempFile));
+    }
 }
@@ -4,6 +4,11 @@ import model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager> {
@@ -62,4 +67,359 @@ public class InMemoryTaskManagerTest extends TaskManagerTest<InMemoryTaskManager
 
         assertTrue(manager.getHistory().isEmpty(), "Эпик и его подзадачи не удалены из истории");
     }
+
+    @Test
+    void columnarReportsMatchObjectScansUnderRandomChanges() {
+        InMemoryTaskManager columnar = createManager();
+        columnar.enableColumnarStore();
+        LocalDateTime base = LocalDateTime.of(2025, 9, 1, 0, 0);
+        Random random = new Random(3);
+        List<Integer> epicIds = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        int slot = 0;
+
+        for (int i = 0; i < 2_000; i++) {
+            int op = random.nextInt(10);
+            for (InMemoryTaskManager target : List.of(manager, columnar)) {
+                Random same = new Random(i);
+                Status status = Status.values()[same.nextInt(3)];
+                switch (op) {
+                    case 0, 1, 2 -> {
+                        Task task = new Task("t", "d", status);
+                        if (same.nextBoolean()) {
+                            task.setStartTime(base.plusHours(slot));
+                            task.setDuration(Duration.ofMinutes(1 + same.nextInt(59)));
+                        }
+                        int id = target.addTask(task);
+                        if (target == columnar) ids.add(id);
+                    }
+                    case 3 -> {
+                        int id = target.addEpic(new Epic("e", "d", Status.NEW));
+                        if (target == columnar) epicIds.add(id);
+                    }
+                    case 4, 5, 6 -> {
+                        if (epicIds.isEmpty()) break;
+                        Subtask subtask = new Subtask("s", "d", status,
+                                epicIds.get(same.nextInt(epicIds.size())));
+                        subtask.setStartTime(base.plusHours(slot));
+                        subtask.setDuration(Duration.ofMinutes(30));
+                        int id = target.addSubtask(subtask);
+                        if (target == columnar) ids.add(id);
+                    }
+                    case 7 -> {
+                        if (ids.isEmpty()) break;
+                        int id = ids.get(same.nextInt(ids.size()));
+                        target.deleteTask(id);
+                        target.deleteSubtask(id);
+                    }
+                    case 8 -> {
+                        if (epicIds.isEmpty() || same.nextInt(10) > 0) break;
+                        Integer epicId = epicIds.get(same.nextInt(epicIds.size()));
+                        target.deleteEpic(epicId);
+                        if (target == columnar) epicIds.remove(epicId);
+                    }
+                    default -> {
+                        if (same.nextInt(50) == 0) target.clearAllSubtasks();
+                    }
+                }
+            }
+            slot++;
+            assertEquals(manager.getPlannedMinutesByStatus(), columnar.getPlannedMinutesByStatus());
+        }
+        assertEquals(manager.getTasksStartingBetween(base, base.plusDays(30)),
+                columnar.getTasksStartingBetween(base, base.plusDays(30)));
+        assertFalse(columnar.getTasksStartingBetween(base, base.plusDays(30)).isEmpty());
+    }
+
+    @Test
+    void statsMatchRecomputedBaselineUnderRandomChanges() {
+        LocalDateTime base = LocalDateTime.of(2025, 9, 1, 0, 0);
+        Random random = new Random(5);
+        List<Integer> epicIds = new ArrayList<>();
+        List<Integer> taskIds = new ArrayList<>();
+        List<Integer> subtaskIds = new ArrayList<>();
+
+        for (int i = 0; i < 3_000; i++) {
+            Status status = Status.values()[random.nextInt(3)];
+            LocalDateTime start = base.plusMinutes(i * 300L + random.nextInt(60));
+            switch (random.nextInt(12)) {
+                case 0, 1, 2 -> {
+                    Task task = new Task("t", "d", status);
+                    if (random.nextBoolean()) {
+                        task.setStartTime(start);
+                        task.setDuration(Duration.ofMinutes(random.nextInt(240)));
+                    }
+                    taskIds.add(manager.addTask(task));
+                }
+                case 3 -> epicIds.add(manager.addEpic(new Epic("e", "d", Status.NEW)));
+                case 4, 5 -> {
+                    // эпик мог уйти в архив вместе с подзадачами
+                    epicIds.retainAll(manager.getEpics().stream().map(Task::getId).toList());
+                    if (epicIds.isEmpty()) break;
+                    Subtask subtask = new Subtask("s", "d", status, epicIds.get(random.nextInt(epicIds.size())));
+                    subtask.setStartTime(start);
+                    subtask.setDuration(Duration.ofMinutes(random.nextInt(240)));
+                    subtaskIds.add(manager.addSubtask(subtask));
+                }
+                case 6 -> {
+                    if (taskIds.isEmpty()) break;
+                    Task old = manager.getTask(taskIds.get(random.nextInt(taskIds.size())));
+                    if (old == null) break;
+                    Task updated = new Task("t2", "d", status);
+                    updated.setId(old.getId());
+                    updated.setStartTime(old.getStartTime());
+                    updated.setDuration(old.getDuration() != null ? Duration.ofMinutes(random.nextInt(60)) : null);
+                    manager.updateTask(updated);
+                }
+                case 7 -> {
+                    if (subtaskIds.isEmpty()) break;
+                    Subtask old = manager.getSubtask(subtaskIds.get(random.nextInt(subtaskIds.size())));
+                    if (old == null) break;
+                    Subtask updated = new Subtask("s2", "d", status, old.getEpicId());
+                    updated.setId(old.getId());
+                    updated.setStartTime(old.getStartTime());
+                    updated.setDuration(Duration.ofMinutes(random.nextInt(60)));
+                    manager.updateSubtask(updated);
+                }
+                case 8 -> {
+                    if (!taskIds.isEmpty()) manager.deleteTask(taskIds.get(random.nextInt(taskIds.size())));
+                    if (!subtaskIds.isEmpty()) manager.deleteSubtask(subtaskIds.get(random.nextInt(subtaskIds.size())));
+                }
+                case 9 -> {
+                    if (!epicIds.isEmpty() && random.nextInt(5) == 0) {
+                        manager.deleteEpic(epicIds.remove(random.nextInt(epicIds.size())));
+                    }
+                }
+                case 10 -> {
+                    if (random.nextInt(20) == 0) manager.archiveDone(start.minusDays(3));
+                }
+                default -> {
+                    if (random.nextInt(100) == 0) manager.clearAllSubtasks();
+                    if (random.nextInt(200) == 0) manager.clearAllTasks();
+                }
+            }
+            if (i % 50 == 0) assertStatsMatchBaseline(base);
+        }
+        assertStatsMatchBaseline(base);
+        manager.enableColumnarStore(); // пересобирает все зеркала заново
+        assertStatsMatchBaseline(base);
+    }
+
+    private void assertStatsMatchBaseline(LocalDateTime base) {
+        Map<TaskType, Map<Status, Integer>> counts = new EnumMap<>(TaskType.class);
+        Map<TaskType, Map<Status, Long>> minutes = new EnumMap<>(TaskType.class);
+        for (TaskType type : TaskType.values()) {
+            counts.put(type, new EnumMap<>(Status.class));
+            minutes.put(type, new EnumMap<>(Status.class));
+            for (Status status : Status.values()) {
+                counts.get(type).put(status, 0);
+                minutes.get(type).put(status, 0L);
+            }
+        }
+        TreeMap<LocalDate, Long> days = new TreeMap<>();
+        List<Task> all = new ArrayList<>(manager.getTasks());
+        all.addAll(manager.getEpics());
+        all.addAll(manager.getSubtasks());
+        for (Task task : all) {
+            counts.get(task.getType()).merge(task.getStatus(), 1, Integer::sum);
+            if (task.getDuration() == null) continue;
+            minutes.get(task.getType()).merge(task.getStatus(), task.getDuration().toMinutes(), Long::sum);
+            if (task.getType() == TaskType.EPIC || task.getStartTime() == null) continue;
+            for (LocalDateTime t = task.getStartTime(); t.isBefore(task.getEndTime()); t = t.plusMinutes(1)) {
+                days.merge(t.toLocalDate(), 1L, Long::sum);
+            }
+        }
+
+        BoardStats stats = manager.getStats();
+        assertEquals(counts, stats.counts());
+        assertEquals(minutes, stats.minutes());
+        assertEquals(days, manager.getScheduledMinutesByDay(base.toLocalDate().minusDays(1),
+                base.toLocalDate().plusYears(3)));
+        Map.Entry<LocalDate, Long> busiest = days.entrySet().stream()
+                .max(Map.Entry.<LocalDate, Long>comparingByValue()
+                        .thenComparing(Map.Entry.<LocalDate, Long>comparingByKey().reversed()))
+                .orElse(null);
+        assertEquals(busiest != null ? busiest.getKey() : null, stats.busiestDay());
+        assertEquals(busiest != null ? busiest.getValue() : 0, stats.busiestDayMinutes());
+    }
+
+    @Test
+    void indexedQueriesMatchFullScanUnderRandomChanges() {
+        LocalDateTime base = LocalDateTime.of(2025, 9, 1, 0, 0);
+        Random random = new Random(17);
+        List<Integer> epicIds = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            Status status = Status.values()[random.nextInt(3)];
+            LocalDateTime start = base.plusMinutes(i * 120L);
+            switch (random.nextInt(8)) {
+                case 0, 1 -> {
+                    Task task = new Task("t", "d", status);
+                    if (random.nextInt(3) > 0) {
+                        task.setStartTime(start);
+                        task.setDuration(Duration.ofMinutes(60));
+                    }
+                    ids.add(manager.addTask(task));
+                }
+                case 2 -> epicIds.add(manager.addEpic(new Epic("e", "d", Status.NEW)));
+                case 3, 4 -> {
+                    if (epicIds.isEmpty()) break;
+                    Subtask subtask = new Subtask("s", "d", status, epicIds.get(random.nextInt(epicIds.size())));
+                    subtask.setStartTime(start);
+                    subtask.setDuration(Duration.ofMinutes(60));
+                    ids.add(manager.addSubtask(subtask));
+                }
+                case 5 -> {
+                    if (ids.isEmpty()) break;
+                    int id = ids.get(random.nextInt(ids.size()));
+                    Task old = manager.getTask(id) != null ? manager.getTask(id) : manager.getSubtask(id);
+                    if (old == null) break;
+                    Task changed = old.copy();
+                    changed.setStatus(status);
+                    if (random.nextBoolean()) changed.setStartTime(null);
+                    if (changed instanceof Subtask subtask) manager.updateSubtask(subtask);
+                    else manager.updateTask(changed);
+                }
+                case 6 -> {
+                    if (ids.isEmpty()) break;
+                    int id = ids.remove(random.nextInt(ids.size()));
+                    manager.deleteTask(id);
+                    manager.deleteSubtask(id);
+                }
+                default -> {
+                    if (!epicIds.isEmpty() && random.nextInt(10) == 0) {
+                        manager.deleteEpic(epicIds.remove(random.nextInt(epicIds.size())));
+                    }
+                }
+            }
+            if (i % 100 == 0) assertQueriesMatchFullScan(base, random, epicIds);
+        }
+        assertQueriesMatchFullScan(base, random, epicIds);
+        manager.enableColumnarStore(); // пересобирает все зеркала заново
+        assertQueriesMatchFullScan(base, random, epicIds);
+    }
+
+    private void assertQueriesMatchFullScan(LocalDateTime base, Random random, List<Integer> epicIds) {
+        List<Task> all = new ArrayList<>(manager.getTasks());
+        all.addAll(manager.getEpics());
+        all.addAll(manager.getSubtasks());
+        for (int q = 0; q < 20; q++) {
+            TaskType type = random.nextInt(4) == 0 ? null : TaskType.values()[random.nextInt(3)];
+            Status status = random.nextBoolean() ? null : Status.values()[random.nextInt(3)];
+            Integer epicId = epicIds.isEmpty() || random.nextInt(5) > 0 ? null : epicIds.get(random.nextInt(epicIds.size()));
+            LocalDateTime from = random.nextBoolean() ? null : base.plusMinutes(random.nextInt(240_000));
+            LocalDateTime to = random.nextBoolean() ? null : base.plusMinutes(random.nextInt(240_000));
+            TaskFilter filter = new TaskFilter(type, status, epicId, from, to);
+            TaskSort sort = TaskSort.values()[random.nextInt(3)];
+
+            List<Task> expected = all.stream().filter(filter::matches).sorted(sort.order()).toList();
+            List<Task> paged = new ArrayList<>();
+            List<Task> page = manager.getPage(filter, sort, Long.MIN_VALUE, Integer.MIN_VALUE, 7);
+            while (!page.isEmpty()) {
+                paged.addAll(page);
+                Task last = page.get(page.size() - 1);
+                page = manager.getPage(filter, sort, sort.key(last), last.getId(), 7);
+            }
+            assertEquals(expected, paged, filter + " " + sort);
+        }
+    }
+
+    @Test
+    void unreasonableTimeIsRejected() {
+        Task tooLong = new Task("Задача", "d", Status.NEW);
+        tooLong.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0));
+        tooLong.setDurationMinutes(InMemoryTaskManager.MAX_DURATION_MINUTES + 1);
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(tooLong));
+
+        Task negative = new Task("Задача", "d", Status.NEW);
+        negative.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0));
+        negative.setDurationMinutes(-1);
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(negative));
+
+        Task atTheEnd = new Task("Задача", "d", Status.NEW);
+        atTheEnd.setStartTime(LocalDateTime.MAX.minusMinutes(10));
+        atTheEnd.setDuration(Duration.ofHours(1));
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(atTheEnd));
+
+        Task forged = new Task("Задача", "d", Status.NEW);
+        forged.setStartMinute(Long.MAX_VALUE - 5);
+        forged.setDurationMinutes(30);
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(forged));
+        assertTrue(manager.getTasks().isEmpty());
+
+        Task year = new Task("Задача", "d", Status.NEW);
+        year.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0));
+        year.setDurationMinutes(InMemoryTaskManager.MAX_DURATION_MINUTES);
+        int id = manager.addTask(year);
+        Task edited = manager.getTask(id).copy();
+        edited.setDurationMinutes(InMemoryTaskManager.MAX_DURATION_MINUTES * 2);
+        assertThrows(IllegalArgumentException.class, () -> manager.updateTask(edited));
+        assertEquals(InMemoryTaskManager.MAX_DURATION_MINUTES, manager.getTask(id).getDurationMinutes());
+    }
+
+    @Test
+    void searchRanksNameMatchesAndFollowsChanges() {
+        int inDescription = manager.addTask(new Task("Отчёт", "Подготовить отчёт для бухгалтерии", Status.NEW));
+        int inName = manager.addTask(new Task("Бухгалтерия: сверка", "Квартальная", Status.NEW));
+        manager.addTask(new Task("Отпуск", "Согласовать даты", Status.NEW));
+
+        List<SearchHit> hits = manager.search("бухгалт", 10);
+        assertEquals(List.of(inName, inDescription), hits.stream().map(SearchHit::id).toList());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+        assertEquals("Подготовить отчёт для бухгалтерии", hits.get(1).snippet());
+
+        assertEquals(List.of(inDescription), manager.search("отчёт бухгалтерии", 10).stream().map(SearchHit::id).toList());
+        assertEquals(List.of(inName), manager.search("бухгалтерия", 1).stream().map(SearchHit::id).toList());
+        assertTrue(manager.search("отчёт сверка", 10).isEmpty());
+        assertTrue(manager.search("  ,. ", 10).isEmpty());
+
+        Task renamed = manager.getTask(inName).copy();
+        renamed.setName("Сверка");
+        manager.updateTask(renamed);
+        assertEquals(List.of(inDescription), manager.search("бухгалт", 10).stream().map(SearchHit::id).toList());
+
+        manager.deleteTask(inDescription);
+        assertTrue(manager.search("отчёт", 10).isEmpty());
+        manager.clearAllTasks();
+        assertTrue(manager.search("сверка", 10).isEmpty());
+    }
+
+    @Test
+    void searchIndexFollowsChangesAfterColumnarStoreIsEnabled() {
+        int id = manager.addTask(new Task("Отчёт", "Квартальный", Status.NEW));
+        manager.enableColumnarStore();
+
+        assertEquals(List.of(id), manager.search("кварт", 10).stream().map(SearchHit::id).toList());
+        int added = manager.addTask(new Task("Квартира", "Оплатить", Status.NEW));
+        assertEquals(List.of(added, id), manager.search("кварт", 10).stream().map(SearchHit::id).toList());
+    }
+
+    @Test
+    void searchSnippetIsCutAroundMatch() {
+        String description = "Длинное вступление, которое не относится к делу, а затем важное слово дедлайн и длинный хвост текста, который в отрывок уже не помещается";
+        int id = manager.addTask(new Task("Задача", description, Status.NEW));
+
+        SearchHit hit = manager.search("ДЕДЛАЙН", 10).get(0);
+        assertEquals(id, hit.id());
+        assertEquals(TaskType.TASK, hit.type());
+        assertTrue(hit.snippet().startsWith("…"));
+        assertTrue(hit.snippet().contains("дедлайн"));
+        assertTrue(hit.snippet().endsWith("…"));
+    }
+
+    @Test
+    void shortPrefixMergesOnlyMostFrequentTerms() {
+        List<Integer> frequent = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            frequent.add(manager.addTask(new Task("Задача " + i, "кодовое слово", Status.NEW)));
+        }
+        for (int i = 0; i < SearchIndex.MAX_PREFIX_TERMS * 2; i++) {
+            manager.addTask(new Task("Задача", "код" + i, Status.NEW));
+        }
+
+        List<Integer> hits = manager.search("код", 1000).stream().map(SearchHit::id).toList();
+        assertEquals(SearchIndex.MAX_PREFIX_TERMS + frequent.size() - 1, hits.size());
+        assertTrue(hits.containsAll(frequent));
+    }
 }
@@ -0,0 +1,108 @@
+package manager;
+
+import model.Status;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private Task task(int id, int startMinute, int minutes) {
+        Task task = new Task("t" + id, "d", Status.NEW);
+        task.setId(id);
+        task.setStartTime(BASE.plusMinutes(startMinute));
+        task.setDuration(Duration.ofMinutes(minutes));
+        return task;
+    }
+
+    @Test
+    void overlappingMatchesBruteForceAfterRandomChanges() {
+        IntervalIndex index = new IntervalIndex();
+        Map<Integer, Task> stored = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 5_000; i++) {
+            int id = random.nextInt(500) + 1;
+            if (random.nextBoolean()) {
+                Task task = task(id, random.nextInt(10_000), random.nextInt(120));
+                index.add(task);
+                stored.put(id, task);
+            } else {
+                index.remove(id);
+                stored.remove(id);
+            }
+
+            if (i % 50 == 0) {
+                LocalDateTime from = BASE.plusMinutes(random.nextInt(10_000));
+                LocalDateTime to = from.plusMinutes(random.nextInt(300));
+                List<Integer> expected = stored.values().stream()
+                        .filter(t -> t.getStartTime().isBefore(to) && from.isBefore(t.getEndTime()))
+                        .sorted(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId))
+                        .map(Task::getId)
+                        .collect(Collectors.toList());
+                List<Integer> actual = index.overlapping(from, to).stream()
+                        .map(Task::getId)
+                        .collect(Collectors.toList());
+                assertEquals(expected, actual);
+            }
+        }
+        assertEquals(stored.size(), index.size());
+    }
+
+    @Test
+    void overlapsAnyUsesHalfOpenIntervals() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(task(1, 60, 30));
+
+        assertFalse(index.overlapsAny(task(2, 30, 30)));
+        assertFalse(index.overlapsAny(task(2, 90, 30)));
+        assertTrue(index.overlapsAny(task(2, 89, 30)));
+        assertTrue(index.overlapsAny(task(2, 70, 0)));
+    }
+
+    @Test
+    void earliestFreeSlotSkipsBusyIntervals() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(task(1, 0, 60));
+        index.add(task(2, 60, 30));
+        index.add(task(3, 100, 60));
+
+        assertEquals(BASE.plusMinutes(90), index.earliestFreeSlot(BASE, Duration.ofMinutes(10)));
+        assertEquals(BASE.plusMinutes(160), index.earliestFreeSlot(BASE, Duration.ofMinutes(11)));
+        assertEquals(BASE.plusMinutes(200), index.earliestFreeSlot(BASE.plusMinutes(200), Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void bulkBuildAnswersLikeIncrementalInserts() {
+        IntervalIndex incremental = new IntervalIndex();
+        List<Task> sorted = new ArrayList<>();
+        Random random = new Random(5);
+        for (int id = 1; id <= 1_000; id++) {
+            Task task = task(id, random.nextInt(50_000), random.nextInt(120));
+            incremental.add(task);
+            sorted.add(task);
+        }
+        sorted.sort(Comparator.comparing(Task::getStartTime).thenComparing(Task::getId));
+
+        IntervalIndex built = new IntervalIndex();
+        built.build(sorted);
+        built.remove(sorted.get(500).getId());
+        incremental.remove(sorted.get(500).getId());
+        built.add(task(2_000, 25_000, 60));
+        incremental.add(task(2_000, 25_000, 60));
+
+        assertEquals(incremental.size(), built.size());
+        for (int from = 0; from < 50_000; from += 997) {
+            assertEquals(incremental.overlapping(BASE.plusMinutes(from), BASE.plusMinutes(from + 300)),
+                    built.overlapping(BASE.plusMinutes(from), BASE.plusMinutes(from + 300)));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package manager;
+
+import model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class JdbcStorageBackendTest {
+
+    private String url;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        boolean driverPresent;
+        try {
+            Class.forName("org.h2.Driver");
+            driverPresent = true;
+        } catch (ClassNotFoundException e) {
+            driverPresent = false;
+        }
+        assumeTrue(driverPresent, "Драйвер H2 не подключён");
+        Path dir = Files.createTempDirectory("kanban-db");
+        url = "jdbc:h2:file:" + dir.resolve("tasks").toAbsolutePath();
+    }
+
+    private InMemoryTaskManager open() {
+        InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager(),
+                new JdbcStorageBackend(url));
+        manager.loadFromStorage();
+        return manager;
+    }
+
+    @Test
+    void changesSurviveReopen() {
+        InMemoryTaskManager manager = open();
+        Task task = new Task("Task, with comma", null, Status.IN_PROGRESS);
+        task.setStartTime(LocalDateTime.parse("2025-03-30T02:30"));
+        task.setDuration(Duration.ofMinutes(45));
+        int taskId = manager.addTask(task);
+        int removedId = manager.addTask(new Task("Removed", "Desc", Status.NEW));
+        int epicId = manager.addEpic(new Epic("Epic", "Desc", Status.NEW));
+        int subtaskId = manager.addSubtask(new Subtask("Sub", "Desc", Status.DONE, epicId));
+        manager.deleteTask(removedId);
+        Epic renamed = new Epic("Renamed", "New desc", Status.NEW);
+        renamed.setId(epicId);
+        manager.updateEpic(renamed);
+        manager.lastCommit().join();
+        manager.close();
+
+        InMemoryTaskManager reopened = open();
+        assertEquals(1, reopened.getTasks().size());
+        Task loaded = reopened.getTask(taskId);
+        assertEquals("Task, with comma", loaded.getName());
+        assertNull(loaded.getDescription());
+        assertEquals(LocalDateTime.parse("2025-03-30T03:15"), loaded.getEndTime());
+        assertEquals("Renamed", reopened.getEpic(epicId).getName());
+        assertEquals(Status.DONE, reopened.getEpic(epicId).getStatus());
+        assertEquals(List.of(subtaskId), reopened.getEpic(epicId).getSubtaskIds());
+        assertTrue(reopened.addTask(new Task("Next", "Desc", Status.NEW)) > subtaskId);
+        reopened.close();
+    }
+
+    @Test
+    void deletingEpicRemovesItsSubtaskRows() {
+        InMemoryTaskManager manager = open();
+        int epicId = manager.addEpic(new Epic("Epic", "Desc", Status.NEW));
+        manager.addSubtask(new Subtask("Sub", "Desc", Status.NEW, epicId));
+        int keptId = manager.addEpic(new Epic("Kept", "Desc", Status.NEW));
+        manager.deleteEpic(epicId);
+        manager.clearAllTasks();
+        manager.close();
+
+        InMemoryTaskManager reopened = open();
+        assertTrue(reopened.getSubtasks().isEmpty());
+        assertEquals(List.of(keptId), reopened.getEpics().stream().map(Task::getId).toList());
+        reopened.close();
+    }
+
+    @Test
+    void managersPickJdbcBackendFromConfig() throws IOException {
+        Properties config = new Properties();
+        config.setProperty(Managers.STORAGE, "jdbc");
+        config.setProperty(Managers.JDBC_URL, url);
+        config.setProperty(Managers.ARCHIVE_FILE, Files.createTempFile("tasks", ".archive").toString());
+        TaskManager manager = Managers.fromConfig(config);
+        manager.addTask(new Task("Task", "Desc", Status.NEW));
+        ((InMemoryTaskManager) manager).close();
+
+        assertEquals(1, open().getTasks().size());
+    }
+
+    @Test
+    void writerSurvivesUnexpectedErrorInBatch() {
+        JdbcStorageBackend backend = new JdbcStorageBackend(url);
+        Task task = new Task("Task", "Desc", Status.NEW);
+        task.setId(1);
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> backend.write(Change.clear(null), null).join());
+        assertInstanceOf(ManagerSaveException.class, failure.getCause());
+        backend.write(Change.upsert(task), null).join();
+        backend.close();
+
+        assertEquals(1, open().getTasks().size());
+    }
+
+    @Test
+    void h2IsNotClosedByItsOwnShutdownHook() {
+        assertEquals(url + ";DB_CLOSE_ON_EXIT=FALSE", JdbcStorageBackend.connectionUrl(url));
+        assertEquals(url + ";db_close_on_exit=true", JdbcStorageBackend.connectionUrl(url + ";db_close_on_exit=true"));
+        assertEquals("jdbc:sqlite:tasks.db", JdbcStorageBackend.connectionUrl("jdbc:sqlite:tasks.db"));
+    }
+}
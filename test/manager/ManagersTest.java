@@ -1,7 +1,14 @@
 package manager;
 
+import model.Status;
+import model.Task;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class ManagersTest {
@@ -10,4 +17,34 @@ public class ManagersTest {
         assertNotNull(Managers.getDefault());
         assertNotNull(Managers.getDefaultHistory());
     }
+
+    @Test
+    void fileStorageIsChosenFromConfig() throws IOException {
+        File file = File.createTempFile("tasks", ".csv");
+        Properties config = new Properties();
+        config.setProperty(Managers.FILE, file.getPath());
+        config.setProperty(Managers.FILE_MODE, "log");
+
+        TaskManager manager = Managers.fromConfig(config);
+        manager.addTask(new Task("Task", "Desc", Status.NEW));
+        ((FileBackedTaskManager) manager).close();
+
+        assertTrue(Files.exists(file.toPath().resolveSibling(file.getName() + ".log")));
+        assertEquals(1, FileBackedTaskManager.loadFromFile(file).getTasks().size());
+    }
+
+    @Test
+    void jdbcWithoutArchiveFileIsRejected() {
+        Properties config = new Properties();
+        config.setProperty(Managers.STORAGE, "jdbc");
+        config.setProperty(Managers.JDBC_URL, "jdbc:h2:mem:tasks");
+        assertThrows(IllegalArgumentException.class, () -> Managers.fromConfig(config));
+    }
+
+    @Test
+    void unknownStorageIsRejected() {
+        Properties config = new Properties();
+        config.setProperty(Managers.STORAGE, "tape");
+        assertThrows(IllegalArgumentException.class, () -> Managers.fromConfig(config));
+    }
 }
@@ -0,0 +1,82 @@
+package manager;
+
+import model.Epic;
+import model.Status;
+import model.Subtask;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedDescriptionsTest {
+
+    private static final String LONG = "Описание, которое достаточно длинное, чтобы остаться в снимке: ";
+
+    private static Task task(int id, String description) {
+        Task task = new Task("t" + id, description, Status.NEW);
+        task.setId(id);
+        return task;
+    }
+
+    private static Map<Integer, Task> load(ByteBuffer buffer, MappedDescriptions descriptions) {
+        Map<Integer, Task> loaded = new HashMap<>();
+        BinarySnapshotFormat.decode(buffer, descriptions, task -> loaded.put(task.getId(), task));
+        return loaded;
+    }
+
+    private static ByteBuffer snapshot(List<Task> tasks) {
+        return ByteBuffer.wrap(BinarySnapshotFormat.encode(tasks, List.<Epic>of(), List.<Subtask>of()));
+    }
+
+    @Test
+    void relocatedDescriptionsDoNotReadOldSnapshot() {
+        ByteBuffer old = snapshot(List.of(task(1, LONG + 1), task(2, LONG + 2), task(3, LONG + 3)));
+        MappedDescriptions descriptions = new MappedDescriptions(old, 0);
+        Map<Integer, Task> loaded = load(old, descriptions);
+        assertTrue(loaded.get(1).hasLazyDescription());
+
+        // 1 не менялась, 2 переписана, 3 удалена, 4 новая — и id 1 уехала на другое место в файле
+        ByteBuffer replacement = snapshot(List.of(task(4, LONG + 4), task(2, LONG + "новое"), task(1, LONG + 1)));
+        MappedDescriptions next = new MappedDescriptions(replacement, 0);
+        load(replacement, next);
+        descriptions.relocate(next);
+        Arrays.fill(old.array(), (byte) 0);
+
+        assertEquals(LONG + 1, loaded.get(1).getDescription());
+        assertEquals(LONG + 2, loaded.get(2).getDescription());
+        assertEquals(LONG + 3, loaded.get(3).getDescription());
+
+        descriptions.relocate(null);
+        Arrays.fill(replacement.array(), (byte) 0);
+        assertEquals(LONG + 1, loaded.get(1).getDescription());
+        assertEquals(LONG + 2, loaded.get(2).getDescription());
+    }
+
+    @Test
+    void releasedDescriptionsAreDroppedOnRelocate() {
+        ByteBuffer old = snapshot(List.of(task(1, LONG + 1), task(2, LONG + 2), task(3, LONG + 3)));
+        MappedDescriptions descriptions = new MappedDescriptions(old, 0);
+        Map<Integer, Task> loaded = load(old, descriptions);
+        Task copy = loaded.get(2).copy();
+
+        // 2 изменили, 3 удалили: менеджер отпускает их описания, и до relocate они ещё читаются
+        loaded.get(2).detachDescription();
+        loaded.get(3).detachDescription();
+        assertEquals(1, descriptions.liveCount());
+
+        ByteBuffer replacement = snapshot(List.of(task(2, LONG + "новое"), task(1, LONG + 1)));
+        MappedDescriptions next = new MappedDescriptions(replacement, 0);
+        load(replacement, next);
+        descriptions.relocate(next);
+        Arrays.fill(old.array(), (byte) 0);
+
+        assertEquals(1, descriptions.liveCount());
+        assertEquals(LONG + 1, loaded.get(1).getDescription());
+        assertEquals(LONG + 2, loaded.get(2).getDescription());
+        assertEquals(LONG + 2, copy.getDescription());
+        assertEquals(LONG + 3, loaded.get(3).getDescription());
+    }
+}
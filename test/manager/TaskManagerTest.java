@@ -4,6 +4,9 @@ import model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -51,6 +54,71 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(Status.NEW, stored.getStatus());
     }
 
+    @Test
+    void storedTasksAreFrozenAndCallerObjectsStayMutable() {
+        Task t = new Task("t", "d", Status.NEW);
+        t.setStartTime(LocalDateTime.of(2025, 9, 20, 10, 0));
+        t.setDuration(Duration.ofMinutes(30));
+        int id = manager.addTask(t);
+
+        t.setStartTime(LocalDateTime.of(2025, 9, 21, 10, 0));
+        Task stored = manager.getTask(id);
+        assertEquals(LocalDateTime.of(2025, 9, 20, 10, 0), stored.getStartTime());
+        assertThrows(IllegalStateException.class, () -> stored.setStartTime(LocalDateTime.of(2025, 9, 19, 10, 0)));
+        assertSame(stored, manager.getTasks().get(0));
+        assertSame(stored, manager.getPrioritizedTasks().get(0));
+
+        Task changed = stored.copy();
+        changed.setStatus(Status.DONE);
+        manager.updateTask(changed);
+        assertEquals(Status.NEW, stored.getStatus(), "Прочитанный снимок не меняется");
+        assertEquals(Status.DONE, manager.getTask(id).getStatus());
+    }
+
+    @Test
+    void epicSnapshotDoesNotSeeLaterSubtasks() {
+        int epicId = manager.addEpic(new Epic("e", "d", Status.NEW));
+        Epic before = manager.getEpic(epicId);
+
+        manager.addSubtask(new Subtask("s", "d", Status.DONE, epicId));
+
+        assertEquals(Status.NEW, before.getStatus());
+        assertEquals(0, before.getSubtaskCount());
+        Epic after = manager.getEpic(epicId);
+        assertEquals(Status.DONE, after.getStatus());
+        assertEquals(1, after.getSubtaskCount());
+        assertThrows(IllegalStateException.class, () -> after.addSubtaskId(42));
+    }
+
+    @Test
+    void pagesCoverAllTasksInSortOrder() {
+        Status[] statuses = Status.values();
+        for (int i = 0; i < 20; i++) {
+            Task task = new Task("t" + i, "d", statuses[(i * 7) % 3]);
+            if (i % 4 != 0) {
+                task.setStartTime(LocalDateTime.of(2025, 9, 1, 0, 0).plusHours((i * 13) % 20));
+                task.setDuration(Duration.ofMinutes(30));
+            }
+            manager.addTask(task);
+        }
+
+        for (TaskSort sort : TaskSort.values()) {
+            List<Task> expected = new ArrayList<>(manager.getTasks());
+            expected.sort(sort.order());
+
+            List<Task> paged = new ArrayList<>();
+            List<Task> page = manager.getPage(TaskType.TASK, sort, 6);
+            while (!page.isEmpty()) {
+                paged.addAll(page);
+                Task last = page.get(page.size() - 1);
+                page = manager.getPage(TaskType.TASK, sort, sort.key(last), last.getId(), 6);
+            }
+            assertEquals(expected, paged, sort.name());
+        }
+        assertTrue(manager.getPage(TaskType.EPIC, TaskSort.ID, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> manager.getPage(TaskType.TASK, TaskSort.ID, 0));
+    }
+
     @Test
     void historyAddsTasksCorrectly() {
         Task t = new Task("t", "d", Status.NEW);
@@ -113,4 +181,179 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(epicId, stored.getEpicId());
         assertTrue(manager.getEpic(epicId).getSubtaskIds().contains(subId));
     }
-}
\ No newline at end of file
+
+    @Test
+    void epicStatusFollowsSubtaskUpdates() {
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        int subId = manager.addSubtask(new Subtask("sub1", "d", Status.NEW, epicId));
+        manager.addSubtask(new Subtask("sub2", "d", Status.DONE, epicId));
+
+        Subtask updated = new Subtask("sub1", "d", Status.DONE, epicId);
+        updated.setId(subId);
+        manager.updateSubtask(updated);
+        assertEquals(Status.DONE, manager.getEpic(epicId).getStatus());
+
+        manager.deleteSubtask(subId);
+        assertEquals(Status.DONE, manager.getEpic(epicId).getStatus());
+
+        manager.clearAllSubtasks();
+        assertEquals(Status.NEW, manager.getEpic(epicId).getStatus());
+    }
+
+    @Test
+    void epicTimeFollowsSubtaskChanges() {
+        int epicId = manager.addEpic(new Epic("Epic", "desc", Status.NEW));
+        Subtask first = new Subtask("sub1", "d", Status.NEW, epicId);
+        first.setStartTime(LocalDateTime.of(2025, 9, 20, 10, 0));
+        first.setDuration(Duration.ofMinutes(30));
+        Subtask second = new Subtask("sub2", "d", Status.NEW, epicId);
+        second.setStartTime(LocalDateTime.of(2025, 9, 20, 12, 0));
+        second.setDuration(Duration.ofMinutes(60));
+        int firstId = manager.addSubtask(first);
+        manager.addSubtask(second);
+
+        Epic epic = manager.getEpic(epicId);
+        assertEquals(LocalDateTime.of(2025, 9, 20, 10, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2025, 9, 20, 13, 0), epic.getEndTime());
+        assertEquals(Duration.ofMinutes(90), epic.getDuration());
+
+        manager.deleteSubtask(firstId);
+        epic = manager.getEpic(epicId);
+        assertEquals(LocalDateTime.of(2025, 9, 20, 12, 0), epic.getStartTime());
+        assertEquals(Duration.ofMinutes(60), epic.getDuration());
+    }
+
+    @Test
+    void overlappingTasksAndFreeSlot() {
+        Task morning = new Task("morning", "d", Status.NEW);
+        morning.setStartTime(LocalDateTime.of(2025, 9, 20, 9, 0));
+        morning.setDuration(Duration.ofMinutes(60));
+        Task noon = new Task("noon", "d", Status.NEW);
+        noon.setStartTime(LocalDateTime.of(2025, 9, 20, 10, 0));
+        noon.setDuration(Duration.ofMinutes(120));
+        manager.addTask(morning);
+        manager.addTask(noon);
+
+        Task clash = new Task("clash", "d", Status.NEW);
+        clash.setStartTime(LocalDateTime.of(2025, 9, 20, 9, 30));
+        clash.setDuration(Duration.ofMinutes(60));
+        assertThrows(IllegalStateException.class, () -> manager.addTask(clash));
+
+        List<Task> overlapping = manager.getOverlappingTasks(
+                LocalDateTime.of(2025, 9, 20, 9, 59), LocalDateTime.of(2025, 9, 20, 10, 1));
+        assertEquals(List.of(morning, noon), overlapping);
+
+        assertEquals(LocalDateTime.of(2025, 9, 20, 12, 0),
+                manager.findFreeSlot(LocalDateTime.of(2025, 9, 20, 9, 0), Duration.ofMinutes(30)));
+    }
+
+    @Test
+    void prioritizedWindowAndCursorPaging() {
+        LocalDateTime day = LocalDateTime.of(2025, 9, 20, 0, 0);
+        for (int hour = 0; hour < 10; hour++) {
+            Task task = new Task("t" + hour, "d", Status.NEW);
+            task.setStartTime(day.plusHours(hour));
+            task.setDuration(Duration.ofMinutes(30));
+            manager.addTask(task);
+        }
+
+        List<Task> window = manager.getPrioritizedTasks(day.plusHours(2), day.plusHours(5), Integer.MAX_VALUE);
+        assertEquals(3, window.size());
+        assertEquals(day.plusHours(2), window.get(0).getStartTime());
+        assertEquals(day.plusHours(4), window.get(2).getStartTime());
+
+        List<Task> firstPage = manager.getPrioritizedTasks(null, null, 4);
+        assertEquals(4, firstPage.size());
+        Task last = firstPage.get(3);
+        List<Task> secondPage = manager.getPrioritizedTasksAfter(last.getStartTime(), last.getId(), null, 4);
+        assertEquals(day.plusHours(4), secondPage.get(0).getStartTime());
+        assertEquals(4, secondPage.size());
+    }
+
+    @Test
+    void listsKeepAscendingIdOrder() {
+        List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            taskIds.add(manager.addTask(new Task("t" + i, "d", Status.NEW)));
+        }
+        int epicId = manager.addEpic(new Epic("epic", "d", Status.NEW));
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            subtaskIds.add(manager.addSubtask(new Subtask("s" + i, "d", Status.NEW, epicId)));
+        }
+        manager.deleteTask(taskIds.remove(10));
+        manager.deleteSubtask(subtaskIds.remove(20));
+
+        assertEquals(taskIds, manager.getTasks().stream().map(Task::getId).toList());
+        assertEquals(subtaskIds, manager.getSubtasks().stream().map(Task::getId).toList());
+        assertEquals(subtaskIds, manager.getEpicSubtasks(epicId).stream().map(Task::getId).toList());
+        assertEquals(List.of(epicId), manager.getEpics().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void doneWorkIsArchivedAndRestored() {
+        LocalDateTime day = LocalDateTime.of(2025, 9, 20, 0, 0);
+        Task old = new Task("old", "d", Status.DONE);
+        old.setStartTime(day);
+        old.setDuration(Duration.ofMinutes(30));
+        int oldId = manager.addTask(old);
+        Task recent = new Task("recent", "d", Status.DONE);
+        recent.setStartTime(day.plusDays(10));
+        recent.setDuration(Duration.ofMinutes(30));
+        int recentId = manager.addTask(recent);
+        int openId = manager.addTask(new Task("open", "d", Status.IN_PROGRESS));
+        int epicId = manager.addEpic(new Epic("epic", "d", Status.NEW));
+        Subtask sub = new Subtask("sub", "d", Status.DONE, epicId);
+        sub.setStartTime(day.plusHours(1));
+        sub.setDuration(Duration.ofMinutes(30));
+        int subId = manager.addSubtask(sub);
+
+        assertEquals(2, manager.archiveDone(day.plusDays(1)));
+        assertNull(manager.getTask(oldId));
+        assertNull(manager.getEpic(epicId));
+        assertNull(manager.getSubtask(subId));
+        assertNotNull(manager.getTask(recentId));
+        assertNotNull(manager.getTask(openId));
+        assertEquals(1, manager.getPrioritizedTasks().size());
+        assertEquals(3, manager.getArchived().size());
+        assertEquals("sub", manager.getArchived(subId).getName());
+        assertEquals(epicId, ((Subtask) manager.getArchived(subId)).getEpicId());
+
+        List<Task> restored = manager.restoreArchived(subId);
+        assertEquals(2, restored.size());
+        Epic returned = (Epic) restored.get(0);
+        Epic stored = manager.getEpic(epicId);
+        assertEquals(stored.getStatus(), returned.getStatus());
+        assertEquals(stored.getDuration(), returned.getDuration());
+        assertEquals(stored.getStartTime(), returned.getStartTime());
+        assertEquals(stored.getEndTime(), returned.getEndTime());
+        assertEquals(stored.getSubtaskIds(), returned.getSubtaskIds());
+        assertEquals(Status.DONE, manager.getEpic(epicId).getStatus());
+        assertEquals(List.of(subId), manager.getEpic(epicId).getSubtaskIds());
+        assertEquals(day.plusHours(1), manager.getSubtask(subId).getStartTime());
+        assertEquals(1, manager.getArchived().size());
+        assertTrue(manager.restoreArchived(subId).isEmpty());
+
+        int newId = manager.addTask(new Task("new", "d", Status.NEW));
+        assertTrue(newId > subId);
+    }
+
+    @Test
+    void restoringIntoOccupiedSlotIsRejected() {
+        LocalDateTime start = LocalDateTime.of(2025, 9, 20, 10, 0);
+        Task done = new Task("done", "d", Status.DONE);
+        done.setStartTime(start);
+        done.setDuration(Duration.ofMinutes(60));
+        int doneId = manager.addTask(done);
+        assertEquals(1, manager.archiveDone(null));
+
+        Task clash = new Task("clash", "d", Status.NEW);
+        clash.setStartTime(start.plusMinutes(30));
+        clash.setDuration(Duration.ofMinutes(60));
+        manager.addTask(clash);
+
+        assertThrows(IllegalStateException.class, () -> manager.restoreArchived(doneId));
+        assertNotNull(manager.getArchived(doneId));
+        assertNull(manager.getTask(doneId));
+    }
+}
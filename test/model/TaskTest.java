@@ -0,0 +1,98 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskTest {
+
+    @Test
+    void unsetTimesUseSentinel() {
+        Task task = new Task("Task", "Desc", Status.NEW);
+
+        assertFalse(task.hasStartTime());
+        assertEquals(Task.NO_TIME, task.getStartMinute());
+        assertEquals(Task.NO_TIME, task.getEndMinute());
+        assertNull(task.getStartTime());
+        assertNull(task.getDuration());
+        assertNull(task.getEndTime());
+
+        task.setStartTime(LocalDateTime.of(2025, 9, 20, 10, 0));
+        assertNull(task.getEndTime(), "Без длительности окончания нет");
+    }
+
+    @Test
+    void timesAreStoredInEpochMinutes() {
+        Task task = new Task("Task", "Desc", Status.NEW);
+        task.setStartTime(LocalDateTime.of(1969, 12, 31, 23, 30, 59));
+        task.setDuration(Duration.ofMinutes(45));
+
+        assertEquals(-30, task.getStartMinute());
+        assertEquals(15, task.getEndMinute());
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 30), task.getStartTime());
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 15), task.getEndTime());
+        assertEquals(Duration.ofMinutes(45), task.getDuration());
+
+        task.setStartTime(null);
+        assertFalse(task.hasStartTime());
+    }
+
+    @Test
+    void epicEndIsSetSeparately() {
+        Epic epic = new Epic("Epic", "Desc", Status.NEW);
+        epic.setStartTime(LocalDateTime.of(2025, 9, 20, 10, 0));
+        epic.setDuration(Duration.ofMinutes(30));
+        epic.setEndTime(LocalDateTime.of(2025, 9, 20, 13, 0));
+
+        assertEquals(LocalDateTime.of(2025, 9, 20, 13, 0), epic.getEndTime());
+        assertEquals(Duration.ZERO, new Epic("Empty", "Desc", Status.NEW).getDuration());
+    }
+
+    @Test
+    void ceilRoundsPartialMinutesUp() {
+        assertEquals(1, EpochMinutes.ceil(LocalDateTime.of(1970, 1, 1, 0, 0, 1)));
+        assertEquals(0, EpochMinutes.ceil(LocalDateTime.of(1970, 1, 1, 0, 0)));
+        assertEquals(-1, EpochMinutes.of(LocalDateTime.of(1969, 12, 31, 23, 59, 59)));
+    }
+
+    @Test
+    void frozenTaskRejectsChangesButCopyIsMutable() {
+        Subtask subtask = new Subtask("Sub", "Desc", Status.IN_PROGRESS, 7);
+        subtask.setId(3);
+        subtask.setStartTime(LocalDateTime.of(2025, 9, 20, 10, 0));
+        subtask.setDuration(Duration.ofMinutes(15));
+        subtask.freeze();
+
+        assertThrows(IllegalStateException.class, () -> subtask.setStatus(Status.DONE));
+        assertThrows(IllegalStateException.class, () -> subtask.setDurationMinutes(5));
+
+        Subtask copy = subtask.copy();
+        assertFalse(copy.isFrozen());
+        assertEquals(3, copy.getId());
+        assertEquals(7, copy.getEpicId());
+        assertEquals(Status.IN_PROGRESS, copy.getStatus());
+        assertEquals(subtask.getEndTime(), copy.getEndTime());
+        copy.setStatus(Status.DONE);
+        assertEquals(Status.IN_PROGRESS, subtask.getStatus());
+    }
+
+    @Test
+    void epicCopyKeepsSubtasksAndEnd() {
+        Epic epic = new Epic("Epic", "Desc", Status.NEW);
+        epic.addSubtaskId(5);
+        epic.setStatus(Status.DONE);
+        epic.setEndTime(LocalDateTime.of(2025, 9, 20, 13, 0));
+
+        Epic copy = epic.copy();
+        copy.addSubtaskId(6);
+
+        assertEquals(Status.DONE, copy.getStatus());
+        assertEquals(epic.getEndTime(), copy.getEndTime());
+        assertEquals(List.of(5), epic.getSubtaskIds());
+        assertEquals(List.of(5, 6), copy.getSubtaskIds());
+    }
+}
@@ -0,0 +1,75 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.time.Month;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    @Test
+    void roundTripsQuotedFieldsWrittenByCsvWriter() throws IOException {
+        StringBuilder content = new StringBuilder();
+        CsvWriter out = new CsvWriter(content);
+        out.field("a,b").field("say \"hi\"").field("line\nbreak\r\nend").field("").field((String) null)
+                .field(-42).field(Month.MAY).field(LocalDateTime.parse("2025-09-20T10:05"))
+                .field(LocalDateTime.parse("2025-09-20T10:05:07.5"));
+        out.endRecord();
+        out.field("second").endRecord();
+
+        try (CsvReader reader = new CsvReader(new StringReader(content.toString()))) {
+            assertTrue(reader.next());
+            assertEquals(9, reader.fieldCount());
+            assertEquals("a,b", reader.getString(0));
+            assertEquals("say \"hi\"", reader.getString(1));
+            assertEquals("line\nbreak\r\nend", reader.getString(2));
+            assertEquals("", reader.getString(3));
+            assertFalse(reader.isNull(3));
+            assertNull(reader.getString(4));
+            assertTrue(reader.isNull(4));
+            assertEquals(-42, reader.getInt(5));
+            assertEquals(Month.MAY, reader.getEnum(6, Month.values()));
+            assertEquals(LocalDateTime.parse("2025-09-20T10:05"), reader.getDateTime(7));
+            assertEquals(LocalDateTime.parse("2025-09-20T10:05:07.5"), reader.getDateTime(8));
+            assertTrue(reader.isTerminated());
+
+            assertTrue(reader.next());
+            assertEquals("second", reader.getString(0));
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void readsLegacyUnquotedRowsAndSkipsBlankLines() throws IOException {
+        String content = "1,TASK,name,NEW,null,null,null,null,\r\n\n2,TASK,it's \"x\",DONE,d,30,2025-01-01T09:00,,";
+
+        try (CsvReader reader = new CsvReader(new StringReader(content))) {
+            assertTrue(reader.next());
+            assertEquals(9, reader.fieldCount());
+            assertEquals("null", reader.getString(4));
+            assertTrue(reader.isNull(5));
+            assertTrue(reader.isNull(8));
+
+            assertTrue(reader.next());
+            assertEquals(2, reader.getInt(0));
+            assertEquals("it's \"x\"", reader.getString(2));
+            assertEquals(30L, reader.getLong(5));
+            assertFalse(reader.isTerminated());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void rejectsMalformedTypedFields() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("12a,MAYBE\n"))) {
+            assertTrue(reader.next());
+            assertThrows(NumberFormatException.class, () -> reader.getInt(0));
+            assertThrows(IllegalArgumentException.class, () -> reader.getEnum(1, Month.values()));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getString(2));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashSetTest {
+
+    @Test
+    void behavesLikeHashSetUnderRandomOperations() {
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(1_000) - 500;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.add(key), set.add(key));
+                case 1 -> assertEquals(expected.remove(key), set.remove(key));
+                default -> assertEquals(expected.contains(key), set.contains(key));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        int[] sorted = expected.stream().mapToInt(Integer::intValue).sorted().toArray();
+        assertArrayEquals(sorted, set.toSortedArray());
+    }
+
+    @Test
+    void storesZeroSeparately() {
+        IntHashSet set = new IntHashSet();
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals("[0]", set.toString());
+        assertTrue(set.remove(0));
+        assertTrue(set.isEmpty());
+    }
+}
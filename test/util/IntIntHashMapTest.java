@@ -0,0 +1,48 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntHashMapTest {
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        IntIntHashMap map = new IntIntHashMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(11);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    Integer previous = expected.put(key, i);
+                    assertEquals(previous == null ? -1 : previous, map.put(key, i));
+                }
+                case 1 -> {
+                    Integer removed = expected.remove(key);
+                    assertEquals(removed == null ? -1 : removed, map.remove(key));
+                }
+                default -> assertEquals((int) expected.getOrDefault(key, -1), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+    }
+
+    @Test
+    void zeroIsAValidValueAndNegativeIsRejected() {
+        IntIntHashMap map = new IntIntHashMap();
+        map.put(5, 0);
+
+        assertTrue(map.containsKey(5));
+        assertEquals(0, map.get(5));
+        assertEquals(-1, map.get(6));
+        assertThrows(IllegalArgumentException.class, () -> map.put(6, -1));
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2_000) - 1_000;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+                case 1 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        Set<Integer> keys = new HashSet<>();
+        map.forEachKey(keys::add);
+        assertEquals(expected.keySet(), keys);
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        map.put(0, "zero");
+        map.put(42, "answer");
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+        assertFalse(map.containsKey(42));
+        assertFalse(map.values().iterator().hasNext());
+    }
+
+    @Test
+    void rejectsNullValues() {
+        assertThrows(NullPointerException.class, () -> new IntObjectHashMap<String>().put(1, null));
+    }
+
+    @Test
+    void copyingInIterationOrderDoesNotCluster() {
+        IntObjectHashMap<String> source = new IntObjectHashMap<>();
+        for (int key = 0; key < 400_000; key++) {
+            source.put(key, "v");
+        }
+        IntObjectHashMap<String> copy = new IntObjectHashMap<>();
+
+        // при номере ячейки из старших бит копия растёт квадратично и занимает десятки секунд
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> source.forEachKey(key -> copy.put(key, "v")));
+        assertEquals(source.size(), copy.size());
+    }
+}